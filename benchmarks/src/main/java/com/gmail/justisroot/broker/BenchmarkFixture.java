@@ -0,0 +1,134 @@
+/*
+ *
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * This program is distributed under the terms of the GNU Lesser General Public License
+ *
+ */
+package com.gmail.justisroot.broker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A BrokerAPI instance backed by a throwaway configuration folder, with chains of test fixture Brokers to route through.
+ */
+final class BenchmarkFixture {
+
+	final File folder;
+	final Config config;
+	final BrokerAPI api;
+
+	BenchmarkFixture() {
+		try {
+			this.folder = Files.createTempDirectory("brokerapi-bench").toFile();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.config = new Config(folder);
+		this.api = new BrokerAPI(config);
+	}
+
+	/**
+	 * Register a chain of String Brokers, of which only the one at the provided position handles integers.<br>
+	 * Every Broker shares the same priority, so that they are ordered by their IDs, which follow their positions.
+	 *
+	 * @param length the number of Brokers in the chain
+	 * @param accepting the position of the Broker handling integers, -1 for none
+	 * @param generous true to configure every Broker to pass generously
+	 * @return the registered Brokers, in order
+	 */
+	final List<Broker<String>> chain(int length, int accepting, boolean generous) {
+		List<Broker<String>> chain = new ArrayList<>(length);
+		for (int i = 0; i < length; i++) {
+			String id = String.format("chain-%04d", i);
+			chain.add(i == accepting ? new Accepting(id) : new Declining(id));
+			config.setGenerous(id, generous);
+		}
+		if (api.registerAll(chain) != length) throw new IllegalStateException("Not every Broker of the chain was registered");
+		return chain;
+	}
+
+	/**
+	 * Apply one step of a cycle of registry mutations, as plugin lifecycle threads would:
+	 * register the provided Broker, raise its priority, reload the configuration, and unregister it.
+	 *
+	 * @param step the step of the cycle, counting from 0
+	 * @param broker the Broker to register and unregister
+	 */
+	final void mutate(long step, Broker<String> broker) {
+		switch ((int) (step % 4)) {
+		case 0:
+			api.register(broker);
+			break;
+		case 1:
+			api.setPriority(broker.getId(), 10);
+			break;
+		case 2:
+			api.reload();
+			break;
+		default:
+			api.unregister(broker);
+		}
+	}
+
+	/**
+	 * Shut the instance down and delete its configuration.
+	 */
+	final void close() {
+		api.shutdown();
+		config.delete();
+		folder.delete();
+	}
+
+	/**
+	 * Handles integers, like the {@link IntegerBroker} fixture.
+	 */
+	static final class Accepting extends IntegerBroker {
+
+		private final String id;
+
+		Accepting(String id) {
+			this.id = id;
+		}
+
+		@Override
+		public String getId() {
+			return id;
+		}
+
+		@Override
+		public byte getPriority() {
+			return 0;
+		}
+
+	}
+
+	/**
+	 * Declines integers, like the {@link NaNBroker} fixture.
+	 */
+	static final class Declining extends NaNBroker {
+
+		private final String id;
+
+		Declining(String id) {
+			this.id = id;
+		}
+
+		@Override
+		public String getId() {
+			return id;
+		}
+
+		@Override
+		public byte getPriority() {
+			return 0;
+		}
+
+	}
+
+}
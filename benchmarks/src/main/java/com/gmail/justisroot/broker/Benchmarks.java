@@ -0,0 +1,30 @@
+/*
+ *
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * This program is distributed under the terms of the GNU Lesser General Public License
+ *
+ */
+package com.gmail.justisroot.broker;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks matching the provided JMH command line, always with the GC profiler, so that allocation rates are reported alongside throughput and average time.<br>
+ * <br>
+ * Usage: {@code java -jar target/benchmarks.jar [JMH options] [benchmark regex]}
+ */
+public final class Benchmarks {
+
+	private Benchmarks() {}
+
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+		new Runner(new OptionsBuilder().parent(new CommandLineOptions(args)).addProfiler(GCProfiler.class).build()).run();
+	}
+
+}
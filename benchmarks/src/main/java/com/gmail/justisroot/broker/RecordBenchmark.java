@@ -0,0 +1,150 @@
+/*
+ *
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * This program is distributed under the terms of the GNU Lesser General Public License
+ *
+ */
+package com.gmail.justisroot.broker;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gmail.justisroot.broker.events.BrokerEventService;
+import com.gmail.justisroot.broker.events.EventPriority;
+import com.gmail.justisroot.broker.events.PurchaseEventHandler;
+import com.gmail.justisroot.broker.events.PurchasePreProcessEventHandler;
+import com.gmail.justisroot.broker.events.SaleEventHandler;
+import com.gmail.justisroot.broker.events.SalePreProcessEventHandler;
+import com.gmail.justisroot.broker.record.PurchaseRecord;
+import com.gmail.justisroot.broker.record.SaleRecord;
+
+/**
+ * Measures the lifecycle of transaction records: starting a builder, setting its volume and value, building it, and completing it.<br>
+ * <br>
+ * Records are built with no pre-process listener, with one letting them through, or with one cancelling them,
+ * and completed with or without a listener for the resulting sale or purchase event. Values range from whole numbers to large, high precision decimals,
+ * and are multiplied by the volume as a Broker pricing a transaction would. Listing sales and failure records are measured as well.<br>
+ * Run with the GC profiler, as {@link Benchmarks} does, {@code gc.alloc.rate.norm} gives the bytes allocated per transaction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordBenchmark {
+
+	public enum PreProcess {
+		NONE, PASS, CANCEL
+	}
+
+	@Param({ "NONE", "PASS", "CANCEL" })
+	private PreProcess preProcess;
+
+	@Param({ "false", "true" })
+	private boolean postEvents;
+
+	@Param({ "100", "19.99", "123456789012345678.123456789" })
+	private String price;
+
+	private final Optional<UUID> player = Optional.of(UUID.randomUUID()), world = Optional.of(UUID.randomUUID());
+	private final String object = "1";
+	private final int volume = 8;
+	private final BigDecimal volumes = BigDecimal.valueOf(volume);
+
+	private BenchmarkFixture fixture;
+	private Broker<String> broker;
+	private BigDecimal unitPrice;
+
+	private SalePreProcessEventHandler salePreProcess;
+	private PurchasePreProcessEventHandler purchasePreProcess;
+	private SaleEventHandler saleListener;
+	private PurchaseEventHandler purchaseListener;
+	private long events;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		fixture = new BenchmarkFixture();
+		broker = fixture.chain(1, 0, false).get(0);
+		unitPrice = new BigDecimal(price);
+		BrokerEventService service = BrokerEventService.current();
+		if (preProcess != PreProcess.NONE) {
+			boolean cancel = preProcess == PreProcess.CANCEL;
+			salePreProcess = (info, record) -> {
+				if (cancel) record.cancel("Cancelled by benchmark");
+				return false;
+			};
+			purchasePreProcess = (info, record) -> {
+				if (cancel) record.cancel("Cancelled by benchmark");
+				return false;
+			};
+			service.addSalePreProcessListener(EventPriority.NORMAL, false, salePreProcess);
+			service.addPurchasePreProcessListener(EventPriority.NORMAL, false, purchasePreProcess);
+		}
+		if (postEvents) {
+			saleListener = (info, record) -> events += record.volume();
+			purchaseListener = (info, record) -> events += record.volume();
+			service.addSaleListener(EventPriority.MONITOR, saleListener);
+			service.addPurchaseListener(EventPriority.MONITOR, purchaseListener);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		BrokerEventService service = BrokerEventService.current();
+		if (salePreProcess != null) service.removeSalePreProcessListener(salePreProcess);
+		if (purchasePreProcess != null) service.removePurchasePreProcessListener(purchasePreProcess);
+		if (saleListener != null) service.removeSaleListener(saleListener);
+		if (purchaseListener != null) service.removePurchaseListener(purchaseListener);
+		fixture.close();
+	}
+
+	@Benchmark
+	public SaleRecord<String> sale() {
+		SaleRecord<String> record = SaleRecord.start(broker, object, player, world).setVolume(volume).setValue(unitPrice.multiply(volumes)).buildSuccess();
+		record.complete();
+		return record;
+	}
+
+	@Benchmark
+	public SaleRecord<String> listing() {
+		SaleRecord<String> record = SaleRecord.startListing(broker, object, player, world).setVolume(volume).buildSuccess();
+		record.complete();
+		return record;
+	}
+
+	@Benchmark
+	public PurchaseRecord<String> purchase() {
+		PurchaseRecord<String> record = PurchaseRecord.start(broker, object, player, world).setVolume(volume).setValue(unitPrice.multiply(volumes)).buildSuccess();
+		record.complete();
+		return record;
+	}
+
+	@Benchmark
+	public SaleRecord<String> saleFailure() {
+		return SaleRecord.start(broker, object, player, world).setVolume(volume).setValue(unitPrice.multiply(volumes)).buildFailure("Out of stock");
+	}
+
+	@Benchmark
+	public PurchaseRecord<String> purchaseFailure() {
+		return PurchaseRecord.start(broker, object, player, world).setVolume(volume).setValue(unitPrice.multiply(volumes)).buildFailure("Insufficient funds");
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+ *
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * This program is distributed under the terms of the GNU Lesser General Public License
+ *
+ */
+package com.gmail.justisroot.broker;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures routing while the registry is mutated concurrently.<br>
+ * <br>
+ * In the {@code mixed} group, seven threads route purchases and sales through a chain of ten Brokers,
+ * while one thread cycles through registering a Broker, raising its priority, reloading the configuration and unregistering it.
+ * The {@code routing} group routes alone, as a baseline. Both report throughput per method, so that the cost of mutations to routing,
+ * and of routing to mutations, are visible side by side.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistryContentionBenchmark {
+
+	private final UUID player = UUID.randomUUID(), world = UUID.randomUUID();
+	private final String object = "1";
+	private final AtomicLong step = new AtomicLong();
+
+	private BenchmarkFixture fixture;
+	private BrokerAPI api;
+	private Broker<String> mutated;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		fixture = new BenchmarkFixture();
+		fixture.chain(10, 5, false);
+		api = fixture.api;
+		mutated = new BenchmarkFixture.Accepting("chain-mutated");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		fixture.close();
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(4)
+	public Optional<PurchaseMediator<String>> mixedPurchase() {
+		return api.forPurchase(player, world, object);
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(3)
+	public Optional<SaleMediator<String>> mixedSale() {
+		return api.forSale(player, world, object);
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(1)
+	public void mixedMutation() {
+		fixture.mutate(step.getAndIncrement(), mutated);
+	}
+
+	@Benchmark
+	@Group("routing")
+	@GroupThreads(4)
+	public Optional<PurchaseMediator<String>> routingPurchase() {
+		return api.forPurchase(player, world, object);
+	}
+
+	@Benchmark
+	@Group("routing")
+	@GroupThreads(4)
+	public Optional<SaleMediator<String>> routingSale() {
+		return api.forSale(player, world, object);
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ *
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * This program is distributed under the terms of the GNU Lesser General Public License
+ *
+ */
+package com.gmail.justisroot.broker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures how routing throughput scales with the number of routing threads, with and without a background thread mutating the registry.<br>
+ * <br>
+ * Run {@link #main(String[])} to measure every thread count from 1 to {@value #MAX_THREADS} in turn, and print the total throughput of each:<br>
+ * {@code java -cp target/benchmarks.jar com.gmail.justisroot.broker.RegistryScalingBenchmark [JMH options]}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class RegistryScalingBenchmark {
+
+	static final int MAX_THREADS = 64;
+
+	@Param({ "false", "true" })
+	private boolean mutations;
+
+	private final UUID player = UUID.randomUUID(), world = UUID.randomUUID();
+	private final String object = "1";
+
+	private BenchmarkFixture fixture;
+	private BrokerAPI api;
+	private Thread mutator;
+	private volatile boolean running;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		fixture = new BenchmarkFixture();
+		fixture.chain(10, 5, false);
+		api = fixture.api;
+		if (!mutations) return;
+		Broker<String> mutated = new BenchmarkFixture.Accepting("chain-mutated");
+		running = true;
+		mutator = new Thread(() -> {
+			for (long step = 0; running; step++) {
+				fixture.mutate(step, mutated);
+				LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+			}
+		}, "Registry Mutator");
+		mutator.setDaemon(true);
+		mutator.start();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws InterruptedException {
+		running = false;
+		if (mutator != null) mutator.join();
+		fixture.close();
+	}
+
+	@Benchmark
+	public Optional<PurchaseMediator<String>> forPurchase() {
+		return api.forPurchase(player, world, object);
+	}
+
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+		CommandLineOptions options = new CommandLineOptions(args);
+		List<String> rows = new ArrayList<>();
+		for (int threads = 1; threads <= MAX_THREADS; threads *= 2) {
+			for (RunResult result : new Runner(new OptionsBuilder().parent(options).include(RegistryScalingBenchmark.class.getName()).threads(threads).build()).run()) {
+				rows.add(String.format("%2d threads, mutations=%-5s %12.3f %s", threads, result.getParams().getParam("mutations"), result.getPrimaryResult().getScore(), result.getPrimaryResult().getScoreUnit()));
+			}
+		}
+		rows.forEach(System.out::println);
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ *
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * This program is distributed under the terms of the GNU Lesser General Public License
+ *
+ */
+package com.gmail.justisroot.broker;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link BrokerAPI#forPurchase(UUID, UUID, Object)} and {@link BrokerAPI#forSale(UUID, UUID, Object)},
+ * and a price lookup through the returned mediator, over chains of 1 to 1000 Brokers of the same type.<br>
+ * <br>
+ * The Broker handling the routed object sits first, in the middle or last in its chain, or is absent so that every Broker is consulted.
+ * With generous Brokers, each is asked whether it can handle the object before whether it handles it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingBenchmark {
+
+	public enum Position {
+		FIRST, MIDDLE, LAST, NONE;
+
+		int of(int length) {
+			switch (this) {
+			case FIRST:
+				return 0;
+			case MIDDLE:
+				return length / 2;
+			case LAST:
+				return length - 1;
+			default:
+				return -1;
+			}
+		}
+	}
+
+	@Param({ "1", "10", "100", "1000" })
+	private int brokers;
+
+	@Param({ "FIRST", "MIDDLE", "LAST", "NONE" })
+	private Position acceptance;
+
+	@Param({ "false", "true" })
+	private boolean generous;
+
+	private final UUID player = UUID.randomUUID(), world = UUID.randomUUID();
+	private final String object = "1";
+
+	private BenchmarkFixture fixture;
+	private BrokerAPI api;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		fixture = new BenchmarkFixture();
+		fixture.chain(brokers, acceptance.of(brokers), generous);
+		api = fixture.api;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		fixture.close();
+	}
+
+	@Benchmark
+	public Optional<PurchaseMediator<String>> forPurchase() {
+		return api.forPurchase(player, world, object);
+	}
+
+	@Benchmark
+	public Optional<SaleMediator<String>> forSale() {
+		return api.forSale(player, world, object);
+	}
+
+	@Benchmark
+	public Optional<BigDecimal> buyPrice() {
+		Optional<PurchaseMediator<String>> mediator = api.forPurchase(player, world, object);
+		return mediator.isPresent() ? mediator.get().getBuyPrice() : Optional.empty();
+	}
+
+}
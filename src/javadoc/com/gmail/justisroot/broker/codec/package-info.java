@@ -0,0 +1,6 @@
+/**
+ * This package contains the portion of BrokerAPI pertaining to the binary transaction format.<br>
+ * <br>
+ * The {@link TransactionCodec} writes transactions to, and reads them from, {@link java.nio.ByteBuffer}s, so that journaling, replication and export may all share one compact format.
+ */
+package com.gmail.justisroot.broker.codec;
@@ -0,0 +1,7 @@
+/**
+ * This package contains the portion of BrokerAPI pertaining to the transaction journal.<br>
+ * <br>
+ * The {@link TransactionJournal} keeps a durable, append-only trace of every completed {@link com.gmail.justisroot.broker.record.SaleRecord} and {@link com.gmail.justisroot.broker.record.PurchaseRecord}.<br>
+ * The {@link JournalReplay} rebuilds aggregates, such as the {@link TransactionTotals}, from that trace after a restart.
+ */
+package com.gmail.justisroot.broker.journal;
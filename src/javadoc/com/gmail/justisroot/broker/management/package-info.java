@@ -0,0 +1,6 @@
+/**
+ * This package contains the portion of BrokerAPI pertaining to runtime management through JMX.<br>
+ * <br>
+ * {@link BrokerRegistryMXBean} exposes the registry and configuration, {@link BrokerStatisticsMXBean} the throughput and latencies of every registered Broker.
+ */
+package com.gmail.justisroot.broker.management;
@@ -0,0 +1,7 @@
+/**
+ * This package contains the portion of BrokerAPI pertaining to runtime metrics.<br>
+ * <br>
+ * {@link BrokerMetrics} measures the latency of every call BrokerAPI makes into a {@link com.gmail.justisroot.broker.Broker}, per Broker and per {@link BrokerMethod}.<br>
+ * {@link TransactionAggregates} aggregates completed transactions over rolling windows, per Broker, world and player.
+ */
+package com.gmail.justisroot.broker.metrics;
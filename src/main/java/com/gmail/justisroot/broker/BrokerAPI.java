@@ -22,14 +22,24 @@
  */
 package com.gmail.justisroot.broker;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.gmail.justisroot.broker.events.BrokerEventService;
+import com.gmail.justisroot.broker.metrics.BrokerMethod;
+import com.gmail.justisroot.broker.metrics.BrokerMetrics;
+import com.gmail.justisroot.broker.metrics.FlightEvents;
+import com.gmail.justisroot.broker.metrics.LockSite;
 
 /**
  * Provides an abstraction layer for transactions.<br>
@@ -42,9 +52,15 @@ public final class BrokerAPI {
 	private static BrokerAPI instance;
 
 	private final Config config;
+	private final IdempotencyCache idempotency = new IdempotencyCache(4096);
 
 	private SimilarMap similar = new SimilarMap();
-	private Map<String, PrioritizedBroker<?, ?>> brokers = new HashMap<>();
+	private volatile Map<String, PrioritizedBroker<?, ?>> brokers = new ConcurrentHashMap<>();
+	private final Map<String, Broker<?>> suspended = new HashMap<>();
+	private final BrokerIndex indices = new BrokerIndex();
+	private final RegistryLock lock = new RegistryLock();
+	private ConfigWatcher watcher;
+	private Management management;
 
 	BrokerAPI(Config config) {
 		this.config = config;
@@ -69,6 +85,33 @@ public final class BrokerAPI {
 		return similar.rawMap();
 	}
 
+	/**
+	 * Get the BrokerInfo held by the registration of the provided Broker, without locking.
+	 *
+	 * @param broker the Broker to get the BrokerInfo of
+	 * @return the BrokerInfo of the provided Broker, null if that instance isn't registered
+	 */
+	final BrokerInfo infoOf(Broker<?> broker) {
+		String id = broker.getId();
+		PrioritizedBroker<?, ?> entry = id == null ? null : brokers.get(id);
+		return entry != null && entry.get() == broker ? entry.info() : null;
+	}
+
+	/**
+	 * Get the bound of the indices held by registered Brokers, see {@link BrokerInfo#index()}.<br>
+	 * Arrays of this length can hold per Broker state for every Broker registered so far.
+	 *
+	 * @return one greater than the highest index ever assigned to a Broker
+	 */
+	public final int indexBound() {
+		lock.lock(LockSite.QUERY);
+		try {
+			return indices.bound();
+		} finally {
+			lock.unlock();
+		}
+	}
+
 	/**
 	 * Get a collection of the installed brokers
 	 *
@@ -80,22 +123,91 @@ public final class BrokerAPI {
 
 	/**
 	 * Register the provided Broker implementation.<br>
-	 * Unregisters any existing Broker with the same ID prior to registration.
+	 * Unregisters any existing Broker with the same ID prior to registration.<br>
+	 * Brokers disabled by the configuration are not registered, but are held until a reload enables them.
 	 *
 	 * @param <T> the type of Object that this Broker transacts
 	 * @param broker the Broker instance to register
 	 * @return true if registration was successful, false if the implementation was invalid
 	 */
-	public synchronized final <T> boolean register(Broker<T> broker) {
-		if (broker == null || broker.getId() == null || broker.getId().isEmpty() || broker.getId().contains(" ") || config.isDisabled(broker)) return false;
-		if (brokers.containsKey(broker.getId())) this.unregister(broker.getId());
-		PrioritizedBroker<T, ?> entry = new PrioritizedBroker<>(broker, config.getPriority(broker));
-		if (similar.contains(entry)) return false;
-		config.ensureEntry(broker);
+	public final <T> boolean register(Broker<T> broker) {
+		lock.lock(LockSite.REGISTER);
+		try {
+			if (broker == null || broker.getId() == null || broker.getId().isEmpty() || broker.getId().contains(" ")) return false;
+			suspended.remove(broker.getId());
+			if (config.isDisabled(broker)) {
+				if (brokers.containsKey(broker.getId())) this.unregister(broker.getId());
+				suspended.put(broker.getId(), broker);
+				return false;
+			}
+			if (brokers.containsKey(broker.getId())) this.unregister(broker.getId());
+			PrioritizedBroker<T, ?> entry = new PrioritizedBroker<>(broker, indices.acquire(), config.getPriority(broker));
+			if (similar.contains(entry)) {
+				indices.release(entry.info().index());
+				return false;
+			}
+			config.ensureEntry(broker);
+			BrokerMetrics.current().reset(entry.info());
+			brokers.put(broker.getId(), entry);
+			similar.add(entry);
+			BrokerEventService.current().createRegistrationEvent(entry.info());
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Register every provided Broker implementation at once.<br>
+	 * <br>
+	 * Equivalent to calling {@link #register(Broker)} for each of them, but the registry is locked once, the configuration is saved once,
+	 * and registration events are only fired once every Broker has been registered.
+	 * Should several of the provided Brokers share an ID, the last of them is registered.
+	 *
+	 * @param brokers the Broker instances to register
+	 * @return the number of Brokers successfully registered, see {@link #isRegistered(Broker)} for individual results
+	 * @throws IllegalArgumentException if the collection is null
+	 */
+	public final int registerAll(Collection<? extends Broker<?>> brokers) {
+		if (brokers == null) throw new IllegalArgumentException("No null arguments!");
+		lock.lock(LockSite.REGISTER);
+		try {
+			Map<String, Broker<?>> valid = new LinkedHashMap<>();
+			for (Broker<?> broker : brokers) {
+				if (broker == null || broker.getId() == null || broker.getId().isEmpty() || broker.getId().contains(" ")) continue;
+				suspended.remove(broker.getId());
+				valid.remove(broker.getId());
+				if (config.isDisabled(broker)) {
+					if (this.brokers.containsKey(broker.getId())) this.unregister(broker.getId());
+					suspended.put(broker.getId(), broker);
+				} else valid.put(broker.getId(), broker);
+			}
+			for (String id : valid.keySet()) if (this.brokers.containsKey(id)) this.unregister(id);
+			List<BrokerInfo> registered = new ArrayList<>(valid.size());
+			List<Broker<?>> added = new ArrayList<>(valid.size());
+			for (Broker<?> broker : valid.values()) {
+				BrokerInfo info = add(broker);
+				if (info == null) continue;
+				registered.add(info);
+				added.add(broker);
+			}
+			config.ensureEntries(added);
+			BrokerEventService.current().createRegistrationEvents(registered);
+			return registered.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private <T> BrokerInfo add(Broker<T> broker) {
+		PrioritizedBroker<T, ?> entry = new PrioritizedBroker<>(broker, indices.acquire(), config.getPriority(broker));
+		if (!similar.add(entry)) {
+			indices.release(entry.info().index());
+			return null;
+		}
+		BrokerMetrics.current().reset(entry.info());
 		brokers.put(broker.getId(), entry);
-		similar.add(entry);
-		BrokerEventService.current().createRegistrationEvent(BrokerInfo.get(broker));
-		return true;
+		return entry.info();
 	}
 
 	/**
@@ -104,7 +216,7 @@ public final class BrokerAPI {
 	 * @param broker the Broker instance to unregister
 	 * @return true if the Broker instance was successfully unregistered, false if the instance wasn't registered to begin with
 	 */
-	public synchronized final boolean unregister(Broker<?> broker) {
+	public final boolean unregister(Broker<?> broker) {
 		return unregister(broker.getId());
 	}
 
@@ -114,12 +226,20 @@ public final class BrokerAPI {
 	 * @param brokerID the ID of the Broker instance to unregister
 	 * @return true if the Broker was successfully unregistered, false if it wasn't registered to begin with
 	 */
-	public synchronized final boolean unregister(String brokerID) {
-		if (brokerID == null || !brokers.containsKey(brokerID)) return false;
-		PrioritizedBroker<?, ?> entry = brokers.remove(brokerID);
-		boolean removed = similar.remove(entry);
-		if (removed) BrokerEventService.current().createUnregistrationEvent(BrokerInfo.get(entry.get()));
-		return removed;
+	public final boolean unregister(String brokerID) {
+		lock.lock(LockSite.UNREGISTER);
+		try {
+			if (brokerID != null) suspended.remove(brokerID);
+			if (brokerID == null || !brokers.containsKey(brokerID)) return false;
+			PrioritizedBroker<?, ?> entry = brokers.remove(brokerID);
+			indices.release(entry.info().index());
+			idempotency.remove(entry.info());
+			boolean removed = similar.remove(entry);
+			if (removed) BrokerEventService.current().createUnregistrationEvent(entry.info());
+			return removed;
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -127,7 +247,7 @@ public final class BrokerAPI {
 	 * @param broker to check if registered
 	 * @return true if the Broker is registered, false if not
 	 */
-	public synchronized final boolean isRegistered(Broker<?> broker) {
+	public final boolean isRegistered(Broker<?> broker) {
 		return isRegistered(broker.getId());
 	}
 
@@ -136,27 +256,137 @@ public final class BrokerAPI {
 	 * @param brokerID the ID of the Broker to check if registered
 	 * @return true if the Broker is registered, false if not
 	 */
-	public synchronized final boolean isRegistered(String brokerID) {
-		return brokers.containsKey(brokerID);
+	public final boolean isRegistered(String brokerID) {
+		lock.lock(LockSite.QUERY);
+		try {
+			return brokers.containsKey(brokerID);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
-	 * Reload all Brokers with the current configuration
+	 * Reload the configuration, applying only the settings that changed.<br>
+	 * <br>
+	 * The configuration is read without holding the registry lock. Only the Brokers whose settings changed are then touched:
+	 * newly disabled Brokers are unregistered, newly enabled ones are registered, and Brokers whose priority changed are reordered within their type, without any event.
 	 */
-	final synchronized void reload() {
-		config.reload();
-		Collection<PrioritizedBroker<?, ?>> old = brokers.values();
-		brokers = new HashMap<>();
-		similar = new SimilarMap();
-		for (PrioritizedBroker<?, ?> broker : old) register(broker.get());
+	final void reload() {
+		Set<String> changed = config.reload();
+		if (!changed.isEmpty()) apply(changed);
+	}
+
+	/**
+	 * Configure a custom priority for the Broker with the provided ID and apply it, enabling the Broker if it was disabled.
+	 *
+	 * @param brokerID the ID of the Broker
+	 * @param priority the new priority of the Broker
+	 */
+	final void setPriority(String brokerID, int priority) {
+		config.setPriority(brokerID, priority);
+		apply(Set.of(brokerID));
+	}
+
+	private void apply(Set<String> changed) {
+		lock.lock(LockSite.RELOAD);
+		try {
+			for (String id : changed) {
+				PrioritizedBroker<?, ?> entry = brokers.get(id);
+				if (entry == null) {
+					Broker<?> broker = suspended.get(id);
+					if (broker != null && !config.isDisabled(broker)) register(broker);
+					continue;
+				}
+				Broker<?> broker = entry.get();
+				if (config.isDisabled(broker)) {
+					unregister(id);
+					suspended.put(id, broker);
+					continue;
+				}
+				config.ensureEntry(broker);
+				int priority = config.getPriority(broker);
+				if (priority != entry.priority()) reprioritize(entry, priority);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private <T, B extends Broker<T>> void reprioritize(PrioritizedBroker<T, B> entry, int priority) {
+		PrioritizedBroker<T, B> updated = new PrioritizedBroker<>(entry, priority);
+		similar.remove(entry);
+		similar.add(updated);
+		brokers.put(entry.get().getId(), updated);
+	}
+
+	/**
+	 * Save any pending configuration change and stop its background writer, unregistering the MBeans, stopping hot reloads and the call watchdog,
+	 * and forgetting every idempotency key.<br>
+	 * To be called by the implementation when shutting down.
+	 */
+	final void shutdown() {
+		setHotReload(false);
+		setManagement(false);
+		setWatchdog(null);
+		idempotency.clear();
+		config.close();
+	}
+
+	/**
+	 * Reload the configuration whenever config.hmff is edited, or stop doing so.
+	 *
+	 * @param enabled true to watch config.hmff for edits
+	 */
+	final synchronized void setHotReload(boolean enabled) {
+		if (enabled == (watcher != null)) return;
+		if (enabled) watcher = new ConfigWatcher(config, this::reload);
+		else {
+			watcher.close();
+			watcher = null;
+		}
+	}
+
+	/**
+	 * Register the {@link com.gmail.justisroot.broker.management.BrokerRegistryMXBean} and {@link com.gmail.justisroot.broker.management.BrokerStatisticsMXBean}
+	 * with the platform MBeanServer, or unregister them.
+	 *
+	 * @param enabled true to expose BrokerAPI through JMX
+	 * @throws IllegalStateException if the MBeans could not be registered, such as when another instance already has
+	 */
+	final synchronized void setManagement(boolean enabled) {
+		if (enabled == (management != null)) return;
+		if (enabled) management = new Management(this, config);
+		else {
+			management.close();
+			management = null;
+		}
+	}
+
+	/**
+	 * Report calls into Brokers that take longer than the provided threshold, with samples of the stack of the calling thread, or stop doing so.
+	 *
+	 * @param threshold the duration after which a call is reported, null to stop reporting
+	 * @throws IllegalArgumentException if the threshold is not positive
+	 */
+	final void setWatchdog(Duration threshold) {
+		if (threshold == null) CallWatchdog.stop();
+		else CallWatchdog.start(threshold);
 	}
 
 	/**
 	 * Unregister all Brokers
 	 */
-	final synchronized void unregisterAll() {
-		brokers = new HashMap<>();
-		similar = new SimilarMap();
+	final void unregisterAll() {
+		lock.lock(LockSite.REGISTER);
+		try {
+			for (PrioritizedBroker<?, ?> entry : brokers.values()) indices.release(entry.info().index());
+			brokers = new ConcurrentHashMap<>();
+			similar = new SimilarMap();
+			suspended.clear();
+			idempotency.clear();
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -168,19 +398,53 @@ public final class BrokerAPI {
 	 * @param object the Object being transacted, singular
 	 * @return an Optional containing a BrokerMediator for the provided player in the provided world and the provided Object, empty if no Broker is available for this transaction
 	 */
-	public synchronized final <T> Optional<PurchaseMediator<T>> forPurchase(UUID playerID, UUID worldID, T object) {
-		if (object == null) return Optional.empty();
-		@SuppressWarnings("unchecked")
-		Optional<SimilarBrokers<T>> ofType = similar.get((Class<T>) object.getClass());
-		if (ofType.isEmpty()) return Optional.empty();
-		Iterator<PrioritizedBroker<T, ?>> iterator = ofType.get().iterator();
-		while (iterator.hasNext()) {
-			PrioritizedBroker<T, ?> next = iterator.next();
-			if (config.isGenerous(next.get()) && !next.get().canBeBought(Optional.ofNullable(playerID), Optional.ofNullable(worldID), object)) continue;
-			if (next.get().handlesPurchases(Optional.ofNullable(playerID), Optional.ofNullable(worldID), object))
-				return Optional.of(new PurchaseMediator<>(next.get(), playerID, worldID, object));
+	public final <T> Optional<PurchaseMediator<T>> forPurchase(UUID playerID, UUID worldID, T object) {
+		lock.lock(LockSite.FOR_PURCHASE);
+		try {
+			if (object == null) return Optional.empty();
+			Object flight = FlightEvents.beginRouting();
+			@SuppressWarnings("unchecked")
+			Optional<SimilarBrokers<T>> ofType = similar.get((Class<T>) object.getClass());
+			if (ofType.isEmpty()) {
+				Instrumentation.routed(flight, object.getClass(), false, null, 0, 0);
+				return Optional.empty();
+			}
+			Iterator<PrioritizedBroker<T, ?>> iterator = ofType.get().iterator();
+			Optional<UUID> player = Optional.ofNullable(playerID), world = Optional.ofNullable(worldID);
+			int depth = 0, passes = 0;
+			for (; iterator.hasNext(); depth++) {
+				PrioritizedBroker<T, ?> next = iterator.next();
+				BrokerInfo info = next.info();
+				if (config.isGenerous(next.get())) {
+					boolean can;
+					long start = Instrumentation.begin(info, BrokerMethod.CAN_BE_BOUGHT);
+					try {
+						can = next.get().canBeBought(player, world, object);
+					} finally {
+						Instrumentation.end(info, BrokerMethod.CAN_BE_BOUGHT, start);
+					}
+					if (!can) {
+						passes++;
+						continue;
+					}
+				}
+				boolean handles;
+				long start = Instrumentation.begin(info, BrokerMethod.HANDLES_PURCHASES);
+				try {
+					handles = next.get().handlesPurchases(player, world, object);
+				} finally {
+					Instrumentation.end(info, BrokerMethod.HANDLES_PURCHASES, start);
+				}
+				if (handles) {
+					Instrumentation.routed(flight, object.getClass(), false, info, depth, passes);
+					return Optional.of(new PurchaseMediator<>(next.get(), info, playerID, worldID, object, idempotency));
+				}
+			}
+			Instrumentation.routed(flight, object.getClass(), false, null, depth, passes);
+			return Optional.empty();
+		} finally {
+			lock.unlock();
 		}
-		return Optional.empty();
 	}
 
 	/**
@@ -192,19 +456,53 @@ public final class BrokerAPI {
 	 * @param object the Object being sold, singular
 	 * @return an Optional containing a SaleMediator for the provided player in the provided world with the provided Object, empty if no Broker is available for this transaction
 	 */
-	public synchronized final <T> Optional<SaleMediator<T>> forSale(UUID playerID, UUID worldID, T object) {
-		if (object == null) return Optional.empty();
-		@SuppressWarnings("unchecked")
-		Optional<SimilarBrokers<T>> ofType = similar.get((Class<T>) object.getClass());
-		if (ofType.isEmpty()) return Optional.empty();
-		Iterator<PrioritizedBroker<T, ?>> iterator = ofType.get().iterator();
-		while (iterator.hasNext()) {
-			PrioritizedBroker<T, ?> next = iterator.next();
-			if (config.isGenerous(next.get()) && !next.get().canBeSold(Optional.ofNullable(playerID), Optional.ofNullable(worldID), object)) continue;
-			if (next.get().handlesSales(Optional.ofNullable(playerID), Optional.ofNullable(worldID), object))
-				return Optional.of(new SaleMediator<>(next.get(), playerID, worldID, object));
+	public final <T> Optional<SaleMediator<T>> forSale(UUID playerID, UUID worldID, T object) {
+		lock.lock(LockSite.FOR_SALE);
+		try {
+			if (object == null) return Optional.empty();
+			Object flight = FlightEvents.beginRouting();
+			@SuppressWarnings("unchecked")
+			Optional<SimilarBrokers<T>> ofType = similar.get((Class<T>) object.getClass());
+			if (ofType.isEmpty()) {
+				Instrumentation.routed(flight, object.getClass(), true, null, 0, 0);
+				return Optional.empty();
+			}
+			Iterator<PrioritizedBroker<T, ?>> iterator = ofType.get().iterator();
+			Optional<UUID> player = Optional.ofNullable(playerID), world = Optional.ofNullable(worldID);
+			int depth = 0, passes = 0;
+			for (; iterator.hasNext(); depth++) {
+				PrioritizedBroker<T, ?> next = iterator.next();
+				BrokerInfo info = next.info();
+				if (config.isGenerous(next.get())) {
+					boolean can;
+					long start = Instrumentation.begin(info, BrokerMethod.CAN_BE_SOLD);
+					try {
+						can = next.get().canBeSold(player, world, object);
+					} finally {
+						Instrumentation.end(info, BrokerMethod.CAN_BE_SOLD, start);
+					}
+					if (!can) {
+						passes++;
+						continue;
+					}
+				}
+				boolean handles;
+				long start = Instrumentation.begin(info, BrokerMethod.HANDLES_SALES);
+				try {
+					handles = next.get().handlesSales(player, world, object);
+				} finally {
+					Instrumentation.end(info, BrokerMethod.HANDLES_SALES, start);
+				}
+				if (handles) {
+					Instrumentation.routed(flight, object.getClass(), true, info, depth, passes);
+					return Optional.of(new SaleMediator<>(next.get(), info, playerID, worldID, object, idempotency));
+				}
+			}
+			Instrumentation.routed(flight, object.getClass(), true, null, depth, passes);
+			return Optional.empty();
+		} finally {
+			lock.unlock();
 		}
-		return Optional.empty();
 	}
 
 }
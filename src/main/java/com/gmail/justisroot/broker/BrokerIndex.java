@@ -0,0 +1,70 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker;
+
+import java.util.Arrays;
+
+/**
+ * Assigns dense integer indices to registered Brokers, recycling the indices of unregistered ones.<br>
+ * <br>
+ * The lowest free index is always assigned first, so indices stay within the number of Brokers ever registered at once.
+ * Not thread safe, to be used under the registry lock.
+ */
+final class BrokerIndex {
+
+	private int[] free = new int[16];
+	private int freed, bound;
+
+	/**
+	 * Assign an index.
+	 *
+	 * @return the lowest index not currently assigned
+	 */
+	final int acquire() {
+		if (freed == 0) return bound++;
+		int lowest = 0;
+		for (int i = 1; i < freed; i++) if (free[i] < free[lowest]) lowest = i;
+		int index = free[lowest];
+		free[lowest] = free[--freed];
+		return index;
+	}
+
+	/**
+	 * Release an index, allowing it to be assigned again.
+	 *
+	 * @param index the index to release
+	 */
+	final void release(int index) {
+		if (index < 0) return;
+		if (freed == free.length) free = Arrays.copyOf(free, freed * 2);
+		free[freed++] = index;
+	}
+
+	/**
+	 * @return one greater than the highest index ever assigned
+	 */
+	final int bound() {
+		return this.bound;
+	}
+
+}
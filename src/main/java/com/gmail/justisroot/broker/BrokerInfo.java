@@ -22,8 +22,7 @@
  */
 package com.gmail.justisroot.broker;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Objects;
 
 /**
  * An information wrapper for a {@link Broker}, to be passed during external events<br>
@@ -33,12 +32,16 @@ import java.util.Map;
  */
 public final class BrokerInfo {
 
-	private static final Map<Broker<?>, BrokerInfo> CACHE = new HashMap<>();
-
 	private final String id, provider;
 	private final Class<?> type;
+	private final int index;
+
+	BrokerInfo(Broker<?> broker) {
+		this(broker, -1);
+	}
 
-	private BrokerInfo(Broker<?> broker) {
+	BrokerInfo(Broker<?> broker, int index) {
+		this.index = index;
 		this.id = broker.getId();
 		this.provider = broker.getProvider();
 		this.type = broker.getType();
@@ -46,14 +49,15 @@ public final class BrokerInfo {
 
 	/**
 	 * Get a BrokerInfo instance for the provided Broker<br>
-	 * May create a new instance or retrieve an existing one from an internal cache.
+	 * Registered Brokers share the instance held by their registration, looked up without locking.
+	 * Any other Broker is given a new instance, which is never retained, so that unregistered Brokers remain free to be garbage collected.
 	 * @param broker The Broker to get the BrokerInfo for
 	 * @return a BrokerInfo instance for the provided Broker
 	 */
 	public static final BrokerInfo get(Broker<?> broker) {
-		BrokerInfo info = CACHE.get(broker);
-		if (info == null) CACHE.put(broker, info = new BrokerInfo(broker));
-		return info;
+		BrokerAPI api = BrokerAPI.current();
+		BrokerInfo info = api == null ? null : api.infoOf(broker);
+		return info != null ? info : new BrokerInfo(broker);
 	}
 
 	/**
@@ -82,4 +86,34 @@ public final class BrokerInfo {
 	public final Class<?> type() {
 		return this.type;
 	}
+
+	/**
+	 * Get the dense index of this Broker within the registry.<br>
+	 * <br>
+	 * Each registered Broker holds a distinct index, no greater than the number of Brokers registered at once, so that per Broker state may be held in plain arrays.
+	 * The index of an unregistered Broker is recycled for the next registration.
+	 *
+	 * @return the index of this Broker, or -1 if it wasn't registered when this BrokerInfo was retrieved
+	 * @see BrokerAPI#indexBound()
+	 */
+	public final int index() {
+		return this.index;
+	}
+
+	/**
+	 * BrokerInfo instances are equal if they share the same ID, provider and object type.
+	 */
+	@Override
+	public final boolean equals(Object obj) {
+		if (this == obj) return true;
+		if (!(obj instanceof BrokerInfo)) return false;
+		BrokerInfo other = (BrokerInfo) obj;
+		return id.equals(other.id) && Objects.equals(provider, other.provider) && Objects.equals(type, other.type);
+	}
+
+	@Override
+	public final int hashCode() {
+		return Objects.hash(id, provider, type);
+	}
+
 }
@@ -25,6 +25,8 @@ package com.gmail.justisroot.broker;
 import java.util.Optional;
 import java.util.UUID;
 
+import com.gmail.justisroot.broker.metrics.BrokerMethod;
+
 /**
  * The medium through which callers interact with their returned {@link Broker}.<br>
  * <br>
@@ -39,10 +41,12 @@ public abstract class BrokerMediator<T> {
 	final BrokerInfo info;
 	final Optional<UUID> playerID, worldID;
 	final T object;
+	final IdempotencyCache idempotency;
 
-	BrokerMediator(Broker<T> broker, UUID playerID, UUID worldID, T object) {
+	BrokerMediator(Broker<T> broker, BrokerInfo info, UUID playerID, UUID worldID, T object, IdempotencyCache idempotency) {
 		this.broker = broker;
-		this.info = BrokerInfo.get(broker);
+		this.idempotency = idempotency;
+		this.info = info;
 		this.playerID = Optional.ofNullable(playerID);
 		this.worldID = Optional.ofNullable(worldID);
 		this.object = object;
@@ -94,7 +98,12 @@ public abstract class BrokerMediator<T> {
 	 * @return a player-friendly display name for the provided Object
 	 */
 	public final String getDisplayName() {
-		return broker.getDisplayName(playerID, worldID, object);
+		long start = Instrumentation.begin(info, BrokerMethod.GET_DISPLAY_NAME);
+		try {
+			return broker.getDisplayName(playerID, worldID, object);
+		} finally {
+			Instrumentation.end(info, BrokerMethod.GET_DISPLAY_NAME, start);
+		}
 	}
 
 }
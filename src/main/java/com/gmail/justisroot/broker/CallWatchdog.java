@@ -0,0 +1,197 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.gmail.justisroot.broker.metrics.BrokerMethod;
+
+/**
+ * Watches the calls in flight into every {@link Broker}, reporting those that take longer than a threshold.<br>
+ * <br>
+ * Each thread calling into Brokers owns a {@link Slot}, which {@link Instrumentation} marks on entering and leaving a call, without locking or allocating.
+ * A daemon thread scans the slots several times per threshold. Once a call exceeds the threshold, the stack of its thread is logged as a warning
+ * along with the ID of the Broker and the method called, and is sampled again every threshold for as long as the call remains stuck.
+ * Once the call returns, that it did is logged as well.<br>
+ * Reports are logged to the {@code com.gmail.justisroot.broker} {@link Logger}.
+ */
+final class CallWatchdog implements Runnable {
+
+	static final Logger LOGGER = Logger.getLogger(BrokerAPI.class.getPackageName());
+
+	private static volatile CallWatchdog current;
+
+	private final long threshold;
+	private final Set<Slot> slots = ConcurrentHashMap.newKeySet();
+	private final ThreadLocal<Slot> slot = ThreadLocal.withInitial(this::slot);
+	private final Thread thread;
+
+	private CallWatchdog(Duration threshold) {
+		this.threshold = threshold.toNanos();
+		this.thread = new Thread(this, "BrokerAPI Call Watchdog");
+		this.thread.setDaemon(true);
+	}
+
+	/**
+	 * Get the running watchdog.
+	 *
+	 * @return the running watchdog, null if none is running
+	 */
+	static CallWatchdog current() {
+		return current;
+	}
+
+	/**
+	 * Start a watchdog reporting calls taking longer than the provided threshold, replacing the running one, if any.
+	 *
+	 * @param threshold the duration after which a call is reported
+	 * @return the started watchdog
+	 * @throws IllegalArgumentException if the threshold is not positive
+	 */
+	static synchronized CallWatchdog start(Duration threshold) {
+		if (threshold.isNegative() || threshold.isZero()) throw new IllegalArgumentException("Threshold must be positive");
+		stop();
+		CallWatchdog watchdog = new CallWatchdog(threshold);
+		watchdog.thread.start();
+		current = watchdog;
+		return watchdog;
+	}
+
+	/**
+	 * Stop the running watchdog, if any.
+	 */
+	static synchronized void stop() {
+		CallWatchdog watchdog = current;
+		if (watchdog == null) return;
+		current = null;
+		watchdog.thread.interrupt();
+	}
+
+	private Slot slot() {
+		Slot slot = new Slot(Thread.currentThread());
+		slots.add(slot);
+		return slot;
+	}
+
+	/**
+	 * Mark the start of a call into a Broker from the current thread.<br>
+	 * Calls nested within another call are not tracked separately.
+	 *
+	 * @param info the BrokerInfo of the Broker being called
+	 * @param method the method being called
+	 * @param start the start time of the call in nanoseconds
+	 */
+	final void enter(BrokerInfo info, BrokerMethod method, long start) {
+		Slot slot = this.slot.get();
+		if (slot.depth++ > 0) return;
+		slot.info = info;
+		slot.method = method;
+		slot.start = start;
+		slot.call = ++slot.calls;
+	}
+
+	/**
+	 * Mark the end of a call into a Broker from the current thread.
+	 */
+	final void exit() {
+		Slot slot = this.slot.get();
+		if (slot.depth == 0 || --slot.depth > 0) return;
+		slot.call = 0;
+	}
+
+	@Override
+	public void run() {
+		long period = Math.max(TimeUnit.MILLISECONDS.toNanos(1), threshold / 4);
+		try {
+			while (true) {
+				TimeUnit.NANOSECONDS.sleep(period);
+				scan(System.nanoTime());
+			}
+		} catch (InterruptedException e) {
+			// Stopped
+		}
+	}
+
+	private void scan(long now) {
+		for (Slot slot : slots) {
+			if (!slot.thread.isAlive()) {
+				slots.remove(slot);
+				continue;
+			}
+			long call = slot.call;
+			if (slot.reported != 0 && slot.reported != call) {
+				LOGGER.log(Level.INFO, "Call to " + slot.reportedMethod + " of Broker " + slot.reportedInfo.id() + " on thread " + slot.thread.getName() + " returned");
+				slot.reported = 0;
+			}
+			if (call == 0) continue;
+			BrokerInfo info = slot.info;
+			BrokerMethod method = slot.method;
+			long elapsed = now - slot.start;
+			if (slot.call != call || elapsed < threshold) continue;
+			if (slot.reported == call && now - slot.sampled < threshold) continue;
+			StackTraceElement[] stack = slot.thread.getStackTrace();
+			if (slot.call != call) continue;
+			Throwable sample = new Throwable("Stack of " + slot.thread.getName() + " (" + slot.thread.getState() + ")");
+			sample.setStackTrace(stack);
+			LOGGER.log(Level.WARNING, "Call to " + method + " of Broker " + info.id() + " by " + info.provider() + " has been running for " + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms", sample);
+			slot.reported = call;
+			slot.reportedInfo = info;
+			slot.reportedMethod = method;
+			slot.sampled = now;
+		}
+	}
+
+	/**
+	 * The call in flight on a single thread.<br>
+	 * Written by its thread, read by the watchdog: the call is published last, and cleared on return, so that the watchdog can tell whether the fields it read belong to it.
+	 */
+	private static final class Slot {
+
+		private final Thread thread;
+
+		// Owned by the calling thread
+		private int depth;
+		private long calls;
+
+		// Published to the watchdog
+		private volatile BrokerInfo info;
+		private volatile BrokerMethod method;
+		private volatile long start, call;
+
+		// Owned by the watchdog
+		private long reported, sampled;
+		private BrokerInfo reportedInfo;
+		private BrokerMethod reportedMethod;
+
+		private Slot(Thread thread) {
+			this.thread = thread;
+		}
+
+	}
+
+}
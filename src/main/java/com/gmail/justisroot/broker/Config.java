@@ -15,32 +15,85 @@
 package com.gmail.justisroot.broker;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
 
 import com.gmail.justisroot.hmff.HMFF;
 import com.gmail.justisroot.hmff.Section;
 
+/**
+ * The BrokerAPI configuration, persisted to config.hmff.<br>
+ * <br>
+ * Changes are written behind: they mark the configuration dirty, and a background writer saves it once no further change has been made for {@value #WRITE_DELAY} milliseconds,
+ * or at most {@value #MAX_WRITE_DELAY} milliseconds after the first unsaved change. The file is saved to a staging file and atomically moved over config.hmff,
+ * so the configuration on disk is never partially written. {@link #close()} writes any pending change, and is to be called on shutdown.<br>
+ * <br>
+ * Pending changes are kept as edits until written. Reloading reapplies them on top of what was read, and writing applies a snapshot of them on top of config.hmff as it is on disk,
+ * so that neither side's changes are lost should it have been edited externally. Only the snapshot is taken while holding this configuration's monitor,
+ * the disk I/O of a write is done by the background writer alone, so that callers changing the configuration never wait on it.
+ * Once closed, there is no background writer, and changes are written immediately by the thread making them.
+ */
 final class Config {
 
+	static final long WRITE_DELAY = 250, MAX_WRITE_DELAY = 2000;
+
+	private final Path path, staging, output;
 	private final HMFF file;
+	private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "BrokerAPI Config Writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final Thread shutdownHook = new Thread(this::flush, "BrokerAPI Config Shutdown");
+	private final List<Consumer<HMFF>> edits = new ArrayList<>();
+	private ScheduledFuture<?> pending;
+	private long dirtySince;
+	private boolean dirty, closed;
+	private long loaded = -1;
+	private volatile long written = -1;
 
-	private final Map<String, Integer> brokers = new HashMap<>();
-	private final Set<String> disabled = new HashSet<>();
-	private final Set<String> generous = new HashSet<>();
+	private volatile ConfigState state = ConfigState.EMPTY;
 
 	private static final String PPATH = "priorities";
 	private static final String GPATH = "pass-generously";
+	private static final String GDEFAULT = "example-broker example-broker2 example-broker3";
 
 	Config(File configFolder) {
-		file = new HMFF(new File(configFolder.getPath() + File.separator + "config.hmff"));
-		if (!file.getFile().exists() || file.getFile().length() < 1) applyDefaults();
-		reload();
+		path = new File(configFolder.getPath() + File.separator + "config.hmff").toPath();
+		staging = path.resolveSibling("config.hmff.read");
+		output = path.resolveSibling("config.hmff.tmp");
+		file = new HMFF(staging.toFile());
+		boolean empty = !path.toFile().exists() || path.toFile().length() < 1;
+		load();
+		if (empty) {
+			edit(this::applyDefaults);
+			state = parse();
+		}
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
 	}
 
-	private final void applyDefaults() {
+	private void applyDefaults(HMFF file) {
 		String[] header = {
 				"##############",
 				"# - Broker - # config.hmff",
@@ -54,48 +107,323 @@ final class Config {
 				"Enter a non-numeric value to disable use of the broker (e.g: Disabled)"
 		};
 		file.getOrCreateSection(PPATH).comments().set(header);
-		file.set("200", PPATH, "example-high-priority-broker");
-		file.set("-200", PPATH,  "example-low-priority-broker");
+		file.getOrSetString("200", PPATH, "example-high-priority-broker");
+		file.getOrSetString("-200", PPATH,  "example-low-priority-broker");
 		file.getOrCreateSection(GPATH).comments().set(
 			"All brokers pass on the object to be transacted to the next highest priority broker, whenever the implementation can't handle that object or that player or world. (e.g a spawner plugin not handling non-spawner items)",
 			"However, brokers configured to pass generously will also pass on objects that they can handle, but which the handling of will result in the failure of the transaction. (e.g permissions, location, online availability, etc)");
-		file.set("example-broker example-broker2 example-broker3", GPATH);
-		file.save();
+		file.getOrSetString(GDEFAULT, GPATH);
 	}
 
 	final void delete() {
-		file.getFile().delete();
+		run(() -> {
+			synchronized (this) {
+				if (pending != null) pending.cancel(false);
+				pending = null;
+				edits.clear();
+				dirty = false;
+			}
+			path.toFile().delete();
+			staging.toFile().delete();
+			output.toFile().delete();
+		});
+	}
+
+	/**
+	 * Copy config.hmff onto a staging file, so that it is what an HMFF reads.
+	 *
+	 * @param staging the staging file to copy config.hmff onto
+	 * @return the checksum of the staged contents, -1 if there is no config.hmff
+	 * @throws IOException if config.hmff could not be copied
+	 */
+	private long stage(Path staging) throws IOException {
+		if (!Files.exists(path)) {
+			Files.deleteIfExists(staging);
+			return -1;
+		}
+		Files.copy(path, staging, StandardCopyOption.REPLACE_EXISTING);
+		return checksum(staging);
+	}
+
+	/**
+	 * Read config.hmff and reapply every pending edit on top of it.
+	 */
+	private void read() {
+		try {
+			loaded = stage(staging);
+			file.reload();
+			Files.deleteIfExists(staging);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		for (Consumer<HMFF> edit : edits) edit.accept(file);
+	}
+
+	/**
+	 * Reload the configuration from config.hmff, replacing the current settings.<br>
+	 * Changes not yet written are reapplied on top of what was read, so that the reload reverts neither them nor the edits made to the file.
+	 *
+	 * @return the IDs of the Brokers whose settings changed
+	 */
+	final synchronized Set<String> reload() {
+		return load();
 	}
 
-	final void reload() {
-		file.reload();
-		brokers.clear();
-		generous.clear();
-		disabled.clear();
-		Section priorities = file.getOrCreateSection(PPATH);
-		for (String key : priorities.children().keySet()) {
-			String broker = key;
+	private Set<String> load() {
+		read();
+		ConfigState previous = state;
+		state = parse();
+		return state.changedFrom(previous);
+	}
+
+	private ConfigState parse() {
+		Map<String, Integer> priorities = new HashMap<>();
+		Set<String> disabled = new HashSet<>(), generous = new HashSet<>();
+		Section section = file.getOrCreateSection(PPATH);
+		for (String broker : section.children().keySet()) {
 			try {
-				Integer priority = priorities.getInteger(broker).get();
-				brokers.put(broker, priority);
+				priorities.put(broker, section.getInteger(broker).get());
 			} catch (NumberFormatException e) {
 				disabled.add(broker);
-				continue;
 			}
 		}
-		for (String broker : file.getOrSetString("example-broker example-broker2 example-broker3", GPATH).split("\\s+")) {
+		for (String broker : file.getOrSetString(GDEFAULT, GPATH).split("\\s+")) {
 			generous.add(broker);
 		}
-		file.save();
+		return new ConfigState(priorities, disabled, generous);
+	}
+
+	private static Set<String> generous(HMFF file) {
+		Set<String> generous = new LinkedHashSet<>(Arrays.asList(file.getOrSetString(GDEFAULT, GPATH).split("\\s+")));
+		generous.remove("");
+		return generous;
+	}
+
+	/**
+	 * Get the current settings.
+	 *
+	 * @return the current settings
+	 */
+	final ConfigState state() {
+		return this.state;
+	}
+
+	/**
+	 * Apply an edit to the configuration, keeping it to be reapplied should config.hmff be read again before the edit is written, and scheduling the background writer to save it.
+	 *
+	 * @param edit the edit to apply
+	 */
+	private void edit(Consumer<HMFF> edit) {
+		edit.accept(file);
+		edits.add(edit);
+		markDirty();
+	}
+
+	private void markDirty() {
+		if (closed) {
+			dirty = true;
+			save();
+			return;
+		}
+		if (writer.isShutdown()) {
+			dirty = true;
+			return;
+		}
+		long now = System.currentTimeMillis();
+		if (!dirty) dirtySince = now;
+		dirty = true;
+		if (pending != null) {
+			if (now - dirtySince >= MAX_WRITE_DELAY) return;
+			pending.cancel(false);
+		}
+		long delay = Math.min(WRITE_DELAY, Math.max(0, dirtySince + MAX_WRITE_DELAY - now));
+		pending = writer.schedule(this::write, delay, TimeUnit.MILLISECONDS);
+	}
+
+	private void write() {
+		try {
+			save();
+		} catch (UncheckedIOException e) {
+			Thread thread = Thread.currentThread();
+			thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+		}
+	}
+
+	/**
+	 * Save any pending change immediately, waiting for the background writer to do so.<br>
+	 * Should config.hmff have been edited externally since it was last read, the pending changes are merged into the edited file rather than overwriting it.
+	 * The merged edits are not applied to the current settings until the next {@link #reload()}.
+	 *
+	 * @throws UncheckedIOException if the configuration could not be saved, in which case it remains dirty
+	 */
+	final void flush() {
+		run(this::save);
+	}
+
+	/**
+	 * Run a task on the background writer and wait for it, or on the calling thread while holding this configuration's monitor once the writer has stopped,
+	 * so that tasks touching the files never run concurrently.
+	 *
+	 * @param task the task to run
+	 */
+	private void run(Runnable task) {
+		Future<?> future;
+		try {
+			future = writer.submit(task);
+		} catch (RejectedExecutionException e) {
+			awaitWriter();
+			synchronized (this) {
+				task.run();
+			}
+			return;
+		}
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					future.get();
+					return;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+					if (e.getCause() instanceof Error) throw (Error) e.getCause();
+					throw new IllegalStateException(e.getCause());
+				}
+			}
+		} finally {
+			if (interrupted) Thread.currentThread().interrupt();
+		}
+	}
+
+	private void awaitWriter() {
+		boolean interrupted = false;
+		while (!writer.isTerminated()) {
+			try {
+				writer.awaitTermination(1, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) Thread.currentThread().interrupt();
+	}
+
+	/**
+	 * Write a snapshot of the pending edits on top of config.hmff as it is on disk, holding this configuration's monitor only to take the snapshot and record the result.
+	 */
+	private void save() {
+		List<Consumer<HMFF>> snapshot;
+		long loaded;
+		synchronized (this) {
+			if (pending != null) pending.cancel(false);
+			pending = null;
+			if (!dirty) return;
+			dirty = false;
+			snapshot = new ArrayList<>(edits);
+			loaded = this.loaded;
+		}
+		long current = -1, written = -1;
+		boolean saved = false;
+		try {
+			current = stage(output);
+			HMFF merged = new HMFF(output.toFile());
+			for (Consumer<HMFF> edit : snapshot) edit.accept(merged);
+			merged.save();
+			written = checksum(output);
+			Files.move(output, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			saved = true;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			if (!saved) {
+				synchronized (this) {
+					dirty = true;
+				}
+			}
+		}
+		synchronized (this) {
+			edits.subList(0, snapshot.size()).clear();
+			if (current == loaded && this.loaded == loaded) this.loaded = written;
+			this.written = current == loaded ? written : -1;
+		}
 	}
 
-	final void save() {
-		file.save();
+	/**
+	 * Get whether config.hmff was last written by this configuration, rather than edited externally since.<br>
+	 * A write that merged external edits is not considered to be this configuration's own, as those edits are yet to be reloaded.
+	 *
+	 * @return true if config.hmff holds exactly what this configuration last wrote to it
+	 */
+	final boolean isOwnWrite() {
+		try {
+			return Files.exists(path) && checksum(path) == written;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Get the path of config.hmff.
+	 *
+	 * @return the path of config.hmff
+	 */
+	final Path path() {
+		return this.path;
+	}
+
+	private static long checksum(Path file) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(Files.readAllBytes(file));
+		return crc.getValue();
+	}
+
+	/**
+	 * Save any pending change and stop the background writer, after which changes are saved immediately.<br>
+	 * To be called when shutting down.
+	 */
+	final void close() {
+		try {
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch (IllegalStateException e) {
+			// Already shutting down, the hook flushes
+		}
+		writer.shutdown();
+		awaitWriter();
+		synchronized (this) {
+			closed = true;
+			save();
+		}
 	}
 
 	final void setPriority(Broker<?> broker, Integer priorty) {
-		file.set(priorty, PPATH, broker.getId());
-		brokers.put(broker.getId(), priorty);
+		setPriority(broker.getId(), priorty);
+	}
+
+	/**
+	 * Configure a custom priority for the Broker with the provided ID, enabling it if it was disabled.
+	 *
+	 * @param brokerID The ID of the Broker to configure
+	 * @param priorty The priority of the Broker
+	 */
+	final synchronized void setPriority(String brokerID, Integer priorty) {
+		state = state.withPriority(brokerID, priorty);
+		edit(file -> file.set(priorty, PPATH, brokerID));
+	}
+
+	/**
+	 * Configure the Broker with the provided ID to pass generously, or not.
+	 *
+	 * @param brokerID The ID of the Broker to configure
+	 * @param generous true if the Broker is to pass generously
+	 */
+	final synchronized void setGenerous(String brokerID, boolean generous) {
+		state = state.withGenerous(brokerID, generous);
+		edit(file -> {
+			Set<String> ids = generous(file);
+			if (generous) ids.add(brokerID);
+			else ids.remove(brokerID);
+			file.set(String.join(" ", ids), GPATH);
+		});
 	}
 
 	/**
@@ -103,9 +431,24 @@ final class Config {
 	 *
 	 * @param broker The Broker to ensure the configuration entry for
 	 */
-	final void ensureEntry(Broker<?> broker) {
-		file.getOrSetString(String.valueOf(broker.getPriority()), PPATH, broker.getId());
-		save();
+	final synchronized void ensureEntry(Broker<?> broker) {
+		ensureEntries(List.of(broker));
+	}
+
+	/**
+	 * Ensures that there is a configuration entry for each of these Brokers, creating them if necessary, with a single save.<br>
+	 * Nothing is saved if every entry already exists.
+	 *
+	 * @param brokers The Brokers to ensure the configuration entries for
+	 */
+	final synchronized void ensureEntries(Collection<? extends Broker<?>> brokers) {
+		Map<String, String> missing = new HashMap<>();
+		Map<String, Section> entries = file.getOrCreateSection(PPATH).children();
+		for (Broker<?> broker : brokers) {
+			if (!entries.containsKey(broker.getId())) missing.put(broker.getId(), String.valueOf(broker.getPriority()));
+		}
+		if (missing.isEmpty()) return;
+		edit(file -> missing.forEach((id, priority) -> file.getOrSetString(priority, PPATH, id)));
 	}
 
 	/**
@@ -115,7 +458,7 @@ final class Config {
 	 * @return true if the Broker is configured to pass generously, false otherwise
 	 */
 	final boolean isGenerous(Broker<?> broker) {
-		return generous.contains(broker.getId());
+		return state.isGenerous(broker.getId());
 	}
 
 	/**
@@ -125,7 +468,7 @@ final class Config {
 	 * @return true if the Broker is disabled, false otherwise
 	 */
 	final boolean isDisabled(Broker<?> broker) {
-		return disabled.contains(broker.getId());
+		return state.isDisabled(broker.getId());
 	}
 
 	/**
@@ -135,8 +478,7 @@ final class Config {
 	 * @return true if the Broker has a configured priority, false otherwise
 	 */
 	final boolean hasCustomPriority(Broker<?> broker) {
-		if (brokers.containsKey(broker.getId())) return true;
-		return false;
+		return state.priority(broker.getId()) != null;
 	}
 
 	/**
@@ -146,6 +488,7 @@ final class Config {
 	 * @return Integer representation of the broker's priority
 	 */
 	final Integer getPriority(Broker<?> broker) {
-		return brokers.containsKey(broker.getId()) ? brokers.get(broker.getId()) : broker.getPriority();
+		Integer priority = state.priority(broker.getId());
+		return priority != null ? priority : broker.getPriority();
 	}
 }
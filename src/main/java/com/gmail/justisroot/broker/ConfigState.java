@@ -0,0 +1,144 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An immutable snapshot of the Broker settings parsed from the configuration.<br>
+ * <br>
+ * Reloading the configuration replaces the snapshot as a whole, so that readers always see a consistent set of settings without locking,
+ * and so that the previous and current snapshots can be compared to find the Brokers whose settings actually changed.
+ */
+final class ConfigState {
+
+	static final ConfigState EMPTY = new ConfigState(Map.of(), Set.of(), Set.of());
+
+	private final Map<String, Integer> priorities;
+	private final Set<String> disabled, generous;
+
+	ConfigState(Map<String, Integer> priorities, Set<String> disabled, Set<String> generous) {
+		this.priorities = Map.copyOf(priorities);
+		this.disabled = Set.copyOf(disabled);
+		this.generous = Set.copyOf(generous);
+	}
+
+	/**
+	 * @param brokerID the ID of the Broker
+	 * @return the configured priority of the Broker, null if it has none
+	 */
+	final Integer priority(String brokerID) {
+		return priorities.get(brokerID);
+	}
+
+	/**
+	 * @param brokerID the ID of the Broker
+	 * @return true if the Broker is disabled
+	 */
+	final boolean isDisabled(String brokerID) {
+		return disabled.contains(brokerID);
+	}
+
+	/**
+	 * @param brokerID the ID of the Broker
+	 * @return true if the Broker is configured to pass generously
+	 */
+	final boolean isGenerous(String brokerID) {
+		return generous.contains(brokerID);
+	}
+
+	/**
+	 * @return the configured priorities, by Broker ID
+	 */
+	final Map<String, Integer> priorities() {
+		return priorities;
+	}
+
+	/**
+	 * @return the IDs of the disabled Brokers
+	 */
+	final Set<String> disabled() {
+		return disabled;
+	}
+
+	/**
+	 * @return the IDs of the Brokers configured to pass generously
+	 */
+	final Set<String> generous() {
+		return generous;
+	}
+
+	/**
+	 * Get a copy of this state with the provided priority configured for the provided Broker.
+	 *
+	 * @param brokerID the ID of the Broker
+	 * @param priority the priority of the Broker
+	 * @return a copy of this state with the provided priority
+	 */
+	final ConfigState withPriority(String brokerID, int priority) {
+		Map<String, Integer> priorities = new HashMap<>(this.priorities);
+		priorities.put(brokerID, priority);
+		Set<String> disabled = new HashSet<>(this.disabled);
+		disabled.remove(brokerID);
+		return new ConfigState(priorities, disabled, generous);
+	}
+
+	/**
+	 * Get a copy of this state with the provided Broker configured to pass generously, or not.
+	 *
+	 * @param brokerID the ID of the Broker
+	 * @param generous true if the Broker is to pass generously
+	 * @return a copy of this state with the provided generous setting
+	 */
+	final ConfigState withGenerous(String brokerID, boolean generous) {
+		Set<String> updated = new HashSet<>(this.generous);
+		if (generous) updated.add(brokerID);
+		else updated.remove(brokerID);
+		return new ConfigState(priorities, disabled, updated);
+	}
+
+	/**
+	 * Get the IDs of every Broker whose priority, disabled or generous setting differs between the provided state and this one.
+	 *
+	 * @param previous the state to compare against
+	 * @return the IDs of the Brokers whose settings changed
+	 */
+	final Set<String> changedFrom(ConfigState previous) {
+		Set<String> changed = new HashSet<>();
+		for (String id : priorities.keySet()) if (!Objects.equals(priorities.get(id), previous.priorities.get(id))) changed.add(id);
+		for (String id : previous.priorities.keySet()) if (!priorities.containsKey(id)) changed.add(id);
+		symmetricDifference(disabled, previous.disabled, changed);
+		symmetricDifference(generous, previous.generous, changed);
+		return changed;
+	}
+
+	private static void symmetricDifference(Set<String> current, Set<String> previous, Set<String> into) {
+		for (String id : current) if (!previous.contains(id)) into.add(id);
+		for (String id : previous) if (!current.contains(id)) into.add(id);
+	}
+
+}
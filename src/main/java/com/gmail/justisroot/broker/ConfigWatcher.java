@@ -0,0 +1,134 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches config.hmff for external edits, reloading the configuration once they settle.<br>
+ * <br>
+ * Bursts of edits are debounced: the reload only happens once no further edit has been seen for {@value #QUIET_PERIOD} milliseconds.
+ * The file is read and parsed on the watcher thread, and only the resulting changes are applied to the registry.
+ * Writes made by the configuration itself are recognized and ignored.<br>
+ * Once {@link #close() closed}, no further reload is started, and any reload in progress is waited for.
+ */
+final class ConfigWatcher implements Runnable {
+
+	static final long QUIET_PERIOD = 500;
+
+	private final Config config;
+	private final Runnable reload;
+	private final WatchService service;
+	private final Thread thread;
+	private volatile boolean closed;
+
+	/**
+	 * Start watching the config.hmff of the provided configuration.
+	 *
+	 * @param config the configuration to watch the file of
+	 * @param reload the reload to run once external edits settle, such as {@link BrokerAPI#reload()}
+	 */
+	ConfigWatcher(Config config, Runnable reload) {
+		this.config = config;
+		this.reload = reload;
+		try {
+			this.service = config.path().getFileSystem().newWatchService();
+			config.path().getParent().register(service, ENTRY_CREATE, ENTRY_MODIFY);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.thread = new Thread(this, "BrokerAPI Config Watcher");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (true) {
+				if (!concerned(service.take())) continue;
+				WatchKey key;
+				while ((key = service.poll(QUIET_PERIOD, TimeUnit.MILLISECONDS)) != null) concerned(key);
+				if (closed) return;
+				if (config.isOwnWrite()) continue;
+				try {
+					reload.run();
+				} catch (RuntimeException e) {
+					thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// Closed
+		}
+	}
+
+	/**
+	 * Consume the events of the provided key, and reset it.
+	 *
+	 * @param key the signalled key
+	 * @return true if any of its events concern config.hmff
+	 */
+	private boolean concerned(WatchKey key) {
+		boolean concerned = false;
+		Path name = config.path().getFileName();
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == OVERFLOW || name.equals(event.context())) concerned = true;
+		}
+		key.reset();
+		return concerned;
+	}
+
+	/**
+	 * Stop watching config.hmff, waiting for any reload in progress to finish.
+	 */
+	final void close() {
+		closed = true;
+		try {
+			service.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (Thread.currentThread() == thread) return;
+		boolean interrupted = false;
+		while (thread.isAlive()) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) Thread.currentThread().interrupt();
+	}
+
+}
@@ -0,0 +1,164 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.gmail.justisroot.broker.record.TransactionRecord;
+
+/**
+ * A bounded cache of transaction records by caller-provided idempotency key.<br>
+ * <br>
+ * The first call for a key runs the transaction, every later call for the same key receives the record of the first, including calls made while it is still running.
+ * Keys are scoped to the Broker and player they were used with, so the same key used with another Broker or player runs a transaction of its own.<br>
+ * Once full, the oldest keys of completed transactions are evicted first. Keys of transactions still running are never evicted, so that a retry can't run them twice.<br>
+ * The keys of a Broker are removed once it is unregistered, so that its records don't keep it reachable.
+ */
+final class IdempotencyCache {
+
+	private final int capacity;
+	private final ConcurrentHashMap<Key, CompletableFuture<TransactionRecord<?>>> records = new ConcurrentHashMap<>();
+	private final Queue<Key> order = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger size = new AtomicInteger();
+
+	IdempotencyCache(int capacity) {
+		if (capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1");
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Get the record of the transaction with the provided key, running it if this is the first call for the key.<br>
+	 * Should the transaction throw, the key is forgotten so that a retry may run it again.
+	 *
+	 * @param <R> the type of record
+	 * @param sale true if the transaction is a sale, false if a purchase, so that the keys of each never collide
+	 * @param key the caller-provided idempotency key
+	 * @param info the BrokerInfo of the Broker facilitating the transaction
+	 * @param playerID the optional UUID of the player making the transaction
+	 * @param transaction the transaction to run on the first call for the key
+	 * @return the record of the first transaction run with the provided key
+	 * @throws IllegalStateException if the record of the first transaction was facilitated by another Broker
+	 */
+	@SuppressWarnings("unchecked")
+	final <R extends TransactionRecord<?>> R get(boolean sale, UUID key, BrokerInfo info, Optional<UUID> playerID, Supplier<R> transaction) {
+		Key entry = new Key(sale, key, info, playerID.orElse(null));
+		CompletableFuture<TransactionRecord<?>> future = new CompletableFuture<>();
+		CompletableFuture<TransactionRecord<?>> existing = records.putIfAbsent(entry, future);
+		if (existing != null) {
+			TransactionRecord<?> record;
+			try {
+				record = existing.join();
+			} catch (CompletionException | CancellationException e) {
+				return get(sale, key, info, playerID, transaction);
+			}
+			if (!info.equals(record.brokerInfo())) throw new IllegalStateException("Idempotency key " + key + " belongs to a transaction of Broker " + record.brokerInfo().id());
+			return (R) record;
+		}
+		order.add(entry);
+		if (size.incrementAndGet() > capacity) evict();
+		try {
+			R record = transaction.get();
+			future.complete(record);
+			return record;
+		} catch (RuntimeException | Error e) {
+			records.remove(entry, future);
+			if (order.remove(entry)) size.decrementAndGet();
+			future.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	private void evict() {
+		for (int remaining = size.get(); remaining > 0 && size.get() > capacity; remaining--) {
+			Key oldest = order.poll();
+			if (oldest == null) return;
+			CompletableFuture<TransactionRecord<?>> future = records.get(oldest);
+			if (future != null && !future.isDone()) {
+				order.add(oldest);
+				continue;
+			}
+			size.decrementAndGet();
+			if (future != null) records.remove(oldest, future);
+		}
+	}
+
+	/**
+	 * Forget the keys of every transaction facilitated by the provided Broker.
+	 *
+	 * @param info the BrokerInfo of the Broker
+	 */
+	final void remove(BrokerInfo info) {
+		for (Key key : records.keySet()) {
+			if (!key.info.equals(info)) continue;
+			records.remove(key);
+			if (order.remove(key)) size.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Forget every key.
+	 */
+	final void clear() {
+		records.clear();
+		order.clear();
+		size.set(0);
+	}
+
+	private static final class Key {
+
+		private final boolean sale;
+		private final UUID key, playerID;
+		private final BrokerInfo info;
+
+		private Key(boolean sale, UUID key, BrokerInfo info, UUID playerID) {
+			this.sale = sale;
+			this.key = key;
+			this.info = info;
+			this.playerID = playerID;
+		}
+
+		@Override
+		public final int hashCode() {
+			return (key.hashCode() * 31 + info.hashCode()) * 31 + Objects.hashCode(playerID) + (sale ? 1 : 0);
+		}
+
+		@Override
+		public final boolean equals(Object o) {
+			if (!(o instanceof Key)) return false;
+			Key that = (Key) o;
+			return this.sale == that.sale && this.key.equals(that.key) && this.info.equals(that.info) && Objects.equals(this.playerID, that.playerID);
+		}
+
+	}
+
+}
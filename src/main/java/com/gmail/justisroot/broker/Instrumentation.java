@@ -0,0 +1,98 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker;
+
+import com.gmail.justisroot.broker.metrics.BrokerMethod;
+import com.gmail.justisroot.broker.metrics.BrokerMetrics;
+import com.gmail.justisroot.broker.metrics.FlightEvents;
+
+/**
+ * The hooks surrounding every call BrokerAPI and its mediators make into a {@link Broker}.<br>
+ * <br>
+ * Each call is bracketed as follows, where the value returned by {@link #begin(BrokerInfo, BrokerMethod)} is passed on to {@link #end(BrokerInfo, BrokerMethod, long)}:
+ * <pre>
+ * long start = Instrumentation.begin(info, method);
+ * try {
+ *     return broker.method(...);
+ * } finally {
+ *     Instrumentation.end(info, method, start);
+ * }
+ * </pre>
+ * Routing calls report their outcome through {@link #routed(Object, Class, boolean, BrokerInfo, int, int)}.<br>
+ * Calls in flight are tracked by the {@link CallWatchdog}, if one is running.
+ */
+final class Instrumentation {
+
+	private Instrumentation() {}
+
+	/**
+	 * Mark the start of a call into a Broker.
+	 *
+	 * @param info the BrokerInfo of the Broker being called
+	 * @param method the method being called
+	 * @return the start time of the call in nanoseconds, 0 if calls aren't being measured, recorded nor watched
+	 */
+	static long begin(BrokerInfo info, BrokerMethod method) {
+		CallWatchdog watchdog = CallWatchdog.current();
+		if (watchdog != null) {
+			long start = System.nanoTime();
+			watchdog.enter(info, method, start);
+			return start;
+		}
+		return BrokerMetrics.current().isEnabled() || FlightEvents.callsEnabled() ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Mark the end of a call into a Broker.
+	 *
+	 * @param info the BrokerInfo of the Broker called
+	 * @param method the method called
+	 * @param start the value returned by {@link #begin(BrokerInfo, BrokerMethod)} for this call
+	 */
+	static void end(BrokerInfo info, BrokerMethod method, long start) {
+		if (start == 0) return;
+		long nanos = System.nanoTime() - start;
+		CallWatchdog watchdog = CallWatchdog.current();
+		if (watchdog != null) watchdog.exit();
+		BrokerMetrics metrics = BrokerMetrics.current();
+		if (metrics.isEnabled()) metrics.record(info, method, nanos);
+		if (FlightEvents.callsEnabled()) FlightEvents.call(info, method, nanos);
+	}
+
+	/**
+	 * Mark the outcome of a routing call.
+	 *
+	 * @param flight the routing event returned by {@link FlightEvents#beginRouting()} for this call
+	 * @param type the type of the object routed
+	 * @param sale true if routed for a sale, false if for a purchase
+	 * @param chosen the BrokerInfo of the chosen Broker, null if none was chosen
+	 * @param depth the position of the chosen Broker within its chain, or the number of Brokers consulted if none was chosen
+	 * @param passes the number of generous Brokers that passed on the object
+	 */
+	static void routed(Object flight, Class<?> type, boolean sale, BrokerInfo chosen, int depth, int passes) {
+		BrokerMetrics metrics = BrokerMetrics.current();
+		if (metrics.isEnabled()) metrics.routing().record(type, sale, depth, passes, chosen != null);
+		FlightEvents.endRouting(flight, type, sale, chosen, depth, passes);
+	}
+
+}
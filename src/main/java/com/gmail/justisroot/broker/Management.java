@@ -0,0 +1,201 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.gmail.justisroot.broker.management.BrokerRegistryMXBean;
+import com.gmail.justisroot.broker.management.BrokerStatisticsMXBean;
+import com.gmail.justisroot.broker.management.BrokerThroughput;
+import com.gmail.justisroot.broker.management.MethodLatency;
+import com.gmail.justisroot.broker.management.RegisteredBroker;
+import com.gmail.justisroot.broker.metrics.BrokerMethod;
+import com.gmail.justisroot.broker.metrics.BrokerMetrics;
+import com.gmail.justisroot.broker.metrics.LatencySnapshot;
+
+/**
+ * Registers the {@link BrokerRegistryMXBean} and {@link BrokerStatisticsMXBean} of a BrokerAPI instance with the platform MBeanServer.<br>
+ * <br>
+ * Attributes are read from the registry and the configuration without locking, operations go through BrokerAPI as any caller would.
+ */
+final class Management {
+
+	private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+	private final ObjectName registry, statistics;
+
+	Management(BrokerAPI api, Config config) {
+		try {
+			this.registry = new ObjectName(BrokerRegistryMXBean.NAME);
+			this.statistics = new ObjectName(BrokerStatisticsMXBean.NAME);
+			server.registerMBean(new Registry(api, config), registry);
+			try {
+				server.registerMBean(new Statistics(api), statistics);
+			} catch (JMException e) {
+				server.unregisterMBean(registry);
+				throw e;
+			}
+		} catch (JMException e) {
+			throw new IllegalStateException("Unable to register the BrokerAPI MBeans", e);
+		}
+	}
+
+	/**
+	 * Unregister the MBeans.
+	 */
+	final void close() {
+		for (ObjectName name : new ObjectName[] { registry, statistics }) {
+			try {
+				server.unregisterMBean(name);
+			} catch (JMException e) {
+				// Already unregistered
+			}
+		}
+	}
+
+	private static final class Registry implements BrokerRegistryMXBean {
+
+		private final BrokerAPI api;
+		private final Config config;
+
+		private Registry(BrokerAPI api, Config config) {
+			this.api = api;
+			this.config = config;
+		}
+
+		@Override
+		public List<RegisteredBroker> getBrokers() {
+			ConfigState state = config.state();
+			List<RegisteredBroker> brokers = new ArrayList<>();
+			for (PrioritizedBroker<?, ?> entry : api.brokers()) {
+				BrokerInfo info = entry.info();
+				brokers.add(new RegisteredBroker(info.id(), info.provider(), info.type().getName(), entry.priority(), info.index(), state.isGenerous(info.id())));
+			}
+			brokers.sort(Comparator.comparing(RegisteredBroker::getType).thenComparing(Comparator.comparingInt(RegisteredBroker::getPriority).reversed()));
+			return brokers;
+		}
+
+		@Override
+		public Map<String, Integer> getConfiguredPriorities() {
+			return config.state().priorities();
+		}
+
+		@Override
+		public List<String> getDisabledBrokers() {
+			return sorted(config.state().disabled());
+		}
+
+		@Override
+		public List<String> getGenerousBrokers() {
+			return sorted(config.state().generous());
+		}
+
+		private static List<String> sorted(Iterable<String> ids) {
+			List<String> sorted = new ArrayList<>();
+			ids.forEach(sorted::add);
+			sorted.sort(null);
+			return sorted;
+		}
+
+		@Override
+		public int getIndexBound() {
+			return api.indexBound();
+		}
+
+		@Override
+		public void reload() {
+			api.reload();
+		}
+
+		@Override
+		public void setPriority(String brokerID, int priority) {
+			if (brokerID == null || brokerID.isEmpty() || brokerID.contains(" ")) throw new IllegalArgumentException("Invalid Broker ID!");
+			api.setPriority(brokerID, priority);
+		}
+
+	}
+
+	private static final class Statistics implements BrokerStatisticsMXBean {
+
+		private final BrokerAPI api;
+
+		private Statistics(BrokerAPI api) {
+			this.api = api;
+		}
+
+		@Override
+		public boolean isEnabled() {
+			return BrokerMetrics.current().isEnabled();
+		}
+
+		@Override
+		public void setEnabled(boolean enabled) {
+			BrokerMetrics.current().setEnabled(enabled);
+		}
+
+		@Override
+		public List<BrokerThroughput> getThroughput() {
+			BrokerMetrics metrics = BrokerMetrics.current();
+			List<BrokerThroughput> throughput = new ArrayList<>();
+			for (PrioritizedBroker<?, ?> entry : api.brokers()) {
+				BrokerInfo info = entry.info();
+				long calls = 0;
+				for (LatencySnapshot snapshot : metrics.snapshot(info).values()) calls += snapshot.count();
+				throughput.add(new BrokerThroughput(info.id(), metrics.completions(info, true), metrics.completions(info, false), calls));
+			}
+			throughput.sort(Comparator.comparing(BrokerThroughput::getBrokerID));
+			return throughput;
+		}
+
+		@Override
+		public List<MethodLatency> getLatencies() {
+			BrokerMetrics metrics = BrokerMetrics.current();
+			List<MethodLatency> latencies = new ArrayList<>();
+			for (PrioritizedBroker<?, ?> entry : api.brokers()) {
+				BrokerInfo info = entry.info();
+				for (Entry<BrokerMethod, LatencySnapshot> method : metrics.snapshot(info).entrySet()) {
+					LatencySnapshot snapshot = method.getValue();
+					if (snapshot.count() == 0) continue;
+					latencies.add(new MethodLatency(info.id(), method.getKey().name(), snapshot.count(), snapshot.mean(), snapshot.p50(), snapshot.p99(), snapshot.max()));
+				}
+			}
+			latencies.sort(Comparator.comparing(MethodLatency::getBrokerID));
+			return latencies;
+		}
+
+		@Override
+		public void reset() {
+			for (PrioritizedBroker<?, ?> entry : api.brokers()) BrokerMetrics.current().reset(entry.info());
+		}
+
+	}
+
+}
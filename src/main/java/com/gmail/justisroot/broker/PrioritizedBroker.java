@@ -25,11 +25,24 @@ package com.gmail.justisroot.broker;
 final class PrioritizedBroker<T, B extends Broker<T>> implements Comparable<PrioritizedBroker<T,B>> {
 
 	private final B broker;
+	private final BrokerInfo info;
 	private final int priority;
 	private final int hash;
 
-	PrioritizedBroker(B broker, int priority) {
+	PrioritizedBroker(B broker, int index, int priority) {
+		this(broker, new BrokerInfo(broker, index), priority);
+	}
+
+	/**
+	 * Create a copy of the provided entry with a different priority, sharing its BrokerInfo.
+	 */
+	PrioritizedBroker(PrioritizedBroker<T, B> entry, int priority) {
+		this(entry.broker, entry.info, priority);
+	}
+
+	private PrioritizedBroker(B broker, BrokerInfo info, int priority) {
 		this.broker = broker;
+		this.info = info;
 		this.priority = priority;
 		this.hash = (217 + broker.hashCode()) * 31 + priority;
 	}
@@ -41,6 +54,13 @@ final class PrioritizedBroker<T, B extends Broker<T>> implements Comparable<Prio
 		return this.broker;
 	}
 
+	/**
+	 * @return the BrokerInfo of this Broker, for as long as it is registered
+	 */
+	final BrokerInfo info() {
+		return this.info;
+	}
+
 	/**
 	 * @return the priority of this Broker
 	 */
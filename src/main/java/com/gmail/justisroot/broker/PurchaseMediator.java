@@ -26,6 +26,7 @@ import java.math.BigDecimal;
 import java.util.Optional;
 import java.util.UUID;
 
+import com.gmail.justisroot.broker.metrics.BrokerMethod;
 import com.gmail.justisroot.broker.record.PurchaseRecord;
 
 /**
@@ -38,8 +39,8 @@ import com.gmail.justisroot.broker.record.PurchaseRecord;
  */
 public final class PurchaseMediator<T> extends BrokerMediator<T> {
 
-	PurchaseMediator(Broker<T> broker, UUID playerID, UUID worldID, T object) {
-		super(broker, playerID, worldID, object);
+	PurchaseMediator(Broker<T> broker, BrokerInfo info, UUID playerID, UUID worldID, T object, IdempotencyCache idempotency) {
+		super(broker, info, playerID, worldID, object, idempotency);
 	}
 
 	/**
@@ -48,7 +49,12 @@ public final class PurchaseMediator<T> extends BrokerMediator<T> {
 	 * @return true if the player can purchase the object in this world, false if otherwise
 	 */
 	public final boolean canBeBought() {
-		return broker.canBeBought(playerID, worldID, object);
+		long start = Instrumentation.begin(info, BrokerMethod.CAN_BE_BOUGHT);
+		try {
+			return broker.canBeBought(playerID, worldID, object);
+		} finally {
+			Instrumentation.end(info, BrokerMethod.CAN_BE_BOUGHT, start);
+		}
 	}
 
 	/**
@@ -84,7 +90,12 @@ public final class PurchaseMediator<T> extends BrokerMediator<T> {
 	 * @return An optional BigDecimal representation of the price the player will need to pay in order to buy these objects, empty if no price is associated with this object
 	 */
 	public final Optional<BigDecimal> getBuyPrice(int volume) {
-		return broker.getBuyPrice(playerID, worldID, object, volume);
+		long start = Instrumentation.begin(info, BrokerMethod.GET_BUY_PRICE);
+		try {
+			return broker.getBuyPrice(playerID, worldID, object, volume);
+		} finally {
+			Instrumentation.end(info, BrokerMethod.GET_BUY_PRICE, start);
+		}
 	}
 
 	/**
@@ -119,8 +130,29 @@ public final class PurchaseMediator<T> extends BrokerMediator<T> {
 	 * @return A PurchaseRecord representing the details of the transaction, including the transaction's success or failure
 	 */
 	public final PurchaseRecord<T> buy(int volume) {
-		return broker.buy(playerID, worldID, object, volume);
+		long start = Instrumentation.begin(info, BrokerMethod.BUY);
+		try {
+			return broker.buy(playerID, worldID, object, volume);
+		} finally {
+			Instrumentation.end(info, BrokerMethod.BUY, start);
+		}
 	}
 
+	/**
+	 * Have the provided player buy a specified amount of the provided Object in the provided world, at most once per idempotency key.<br>
+	 * <br>
+	 * Repeated calls with the same key, such as retries after a timeout, return the {@link PurchaseRecord} of the first call instead of repeating the purchase.
+	 * This includes calls made while the first is still in progress. Keys are scoped to this mediator's Broker and player, and remembered for a bounded number of recent transactions.<br>
+	 * <br>
+	 * Otherwise the same as {@link #buy(int)}. {@link PurchaseRecord#complete()} may safely be called for each returned record, as it only completes once.
+	 *
+	 * @param volume The amount of the object to buy
+	 * @param idempotencyKey A caller-provided key unique to this purchase attempt, null to always buy
+	 * @return A PurchaseRecord representing the details of the transaction, including the transaction's success or failure
+	 */
+	public final PurchaseRecord<T> buy(int volume, UUID idempotencyKey) {
+		if (idempotencyKey == null) return buy(volume);
+		return idempotency.get(false, idempotencyKey, info, playerID, () -> buy(volume));
+	}
 
 }
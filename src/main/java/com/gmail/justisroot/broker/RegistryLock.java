@@ -0,0 +1,88 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.gmail.justisroot.broker.metrics.BrokerMetrics;
+import com.gmail.justisroot.broker.metrics.LockMetrics;
+import com.gmail.justisroot.broker.metrics.LockSite;
+
+/**
+ * The reentrant lock guarding the registry of {@link BrokerAPI}, reporting its contention to {@link BrokerMetrics#locks()}.<br>
+ * <br>
+ * Used in place of the BrokerAPI monitor as follows:
+ * <pre>
+ * lock.lock(site);
+ * try {
+ *     ...
+ * } finally {
+ *     lock.unlock();
+ * }
+ * </pre>
+ * Only the outermost acquisition by a thread is measured. While metrics are disabled, the lock is neither timed nor reported.
+ */
+final class RegistryLock {
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	// Guarded by the lock
+	private LockSite site;
+	private long since;
+
+	/**
+	 * Acquire the lock for the provided operation, waiting for it if necessary.
+	 *
+	 * @param site the operation the lock is acquired for
+	 */
+	final void lock(LockSite site) {
+		if (lock.isHeldByCurrentThread() || !BrokerMetrics.current().isEnabled()) {
+			lock.lock();
+			return;
+		}
+		long wait = 0, now;
+		if (lock.tryLock()) now = System.nanoTime();
+		else {
+			long start = System.nanoTime();
+			lock.lock();
+			now = System.nanoTime();
+			wait = Math.max(1, now - start);
+		}
+		this.site = site;
+		this.since = now;
+		BrokerMetrics.current().locks().acquired(site, wait, now);
+	}
+
+	/**
+	 * Release the lock, reporting how long it was held if this releases the outermost measured acquisition.
+	 */
+	final void unlock() {
+		if (lock.getHoldCount() == 1 && site != null) {
+			LockMetrics metrics = BrokerMetrics.current().locks();
+			metrics.released(site, System.nanoTime() - since);
+			site = null;
+		}
+		lock.unlock();
+	}
+
+}
@@ -26,6 +26,7 @@ import java.math.BigDecimal;
 import java.util.Optional;
 import java.util.UUID;
 
+import com.gmail.justisroot.broker.metrics.BrokerMethod;
 import com.gmail.justisroot.broker.record.SaleRecord;
 
 /**
@@ -38,8 +39,8 @@ import com.gmail.justisroot.broker.record.SaleRecord;
  */
 public final class SaleMediator<T> extends BrokerMediator<T> {
 
-	SaleMediator(Broker<T> broker, UUID playerID, UUID worldID, T object) {
-		super(broker, playerID, worldID, object);
+	SaleMediator(Broker<T> broker, BrokerInfo info, UUID playerID, UUID worldID, T object, IdempotencyCache idempotency) {
+		super(broker, info, playerID, worldID, object, idempotency);
 	}
 
 	/**
@@ -48,7 +49,12 @@ public final class SaleMediator<T> extends BrokerMediator<T> {
 	 * @return true if the player can sell the object in this world, false @Override if otherwise
 	 */
 	public final boolean canBeSold() {
-		return broker.canBeSold(playerID, worldID, object);
+		long start = Instrumentation.begin(info, BrokerMethod.CAN_BE_SOLD);
+		try {
+			return broker.canBeSold(playerID, worldID, object);
+		} finally {
+			Instrumentation.end(info, BrokerMethod.CAN_BE_SOLD, start);
+		}
 	}
 
 	/**
@@ -84,7 +90,12 @@ public final class SaleMediator<T> extends BrokerMediator<T> {
 	 * @return An optional BigDecimal representation of the price the player will be paid as a result of selling, empty if no price is associated with this object
 	 */
 	public final Optional<BigDecimal> getSellPrice(int volume) {
-		return broker.getSellPrice(playerID, worldID, object, volume);
+		long start = Instrumentation.begin(info, BrokerMethod.GET_SELL_PRICE);
+		try {
+			return broker.getSellPrice(playerID, worldID, object, volume);
+		} finally {
+			Instrumentation.end(info, BrokerMethod.GET_SELL_PRICE, start);
+		}
 	}
 
 	/**
@@ -120,7 +131,29 @@ public final class SaleMediator<T> extends BrokerMediator<T> {
 	 * @return A SaleRecord representing the details of the transaction, including the transaction's success or failure
 	 */
 	public final SaleRecord<T> sell(int volume) {
-		return broker.sell(playerID, worldID, object, volume);
+		long start = Instrumentation.begin(info, BrokerMethod.SELL);
+		try {
+			return broker.sell(playerID, worldID, object, volume);
+		} finally {
+			Instrumentation.end(info, BrokerMethod.SELL, start);
+		}
+	}
+
+	/**
+	 * Have the provided player sell a specified amount of the provided Object in the provided world, at most once per idempotency key.<br>
+	 * <br>
+	 * Repeated calls with the same key, such as retries after a timeout, return the {@link SaleRecord} of the first call instead of repeating the sale.
+	 * This includes calls made while the first is still in progress. Keys are scoped to this mediator's Broker and player, and remembered for a bounded number of recent transactions.<br>
+	 * <br>
+	 * Otherwise the same as {@link #sell(int)}. {@link SaleRecord#complete()} may safely be called for each returned record, as it only completes once.
+	 *
+	 * @param volume The amount of the object to sell
+	 * @param idempotencyKey A caller-provided key unique to this sale attempt, null to always sell
+	 * @return A SaleRecord representing the details of the transaction, including the transaction's success or failure
+	 */
+	public final SaleRecord<T> sell(int volume, UUID idempotencyKey) {
+		if (idempotencyKey == null) return sell(volume);
+		return idempotency.get(true, idempotencyKey, info, playerID, () -> sell(volume));
 	}
 
 }
@@ -0,0 +1,97 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.codec;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The strings, such as Broker IDs, already defined within a stream of encoded transactions.<br>
+ * <br>
+ * The first time a string is encoded it is written in full and assigned the next index. Every later occurrence is written as that index.<br>
+ * A stream must therefore be decoded in order, with a dictionary of its own, starting from where encoding started with an empty dictionary.<br>
+ * Dictionaries are not thread safe.
+ */
+public final class CodecDictionary {
+
+	private final List<String> values = new ArrayList<>();
+	private final Map<String, Integer> indices = new HashMap<>();
+
+	/**
+	 * Get the index of the provided string.
+	 *
+	 * @param value the string to get the index of
+	 * @return the index of the string, -1 if it has not been defined
+	 */
+	final int indexOf(String value) {
+		Integer index = indices.get(value);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Get the string defined at the provided index.
+	 *
+	 * @param index the index of the string
+	 * @return the string defined at the index
+	 * @throws IllegalArgumentException if no string is defined at the index
+	 */
+	final String get(int index) {
+		if (index < 0 || index >= values.size()) throw new IllegalArgumentException("Undefined dictionary index " + index);
+		return values.get(index);
+	}
+
+	final int define(String value) {
+		indices.put(value, values.size());
+		values.add(value);
+		return values.size() - 1;
+	}
+
+	/**
+	 * Remove every definition made at or after the provided size, used to roll back an encoding that was not written to the stream.
+	 *
+	 * @param size the size to truncate to
+	 */
+	public final void truncate(int size) {
+		while (values.size() > size) indices.remove(values.remove(values.size() - 1));
+	}
+
+	/**
+	 * Get the number of strings defined.
+	 *
+	 * @return the number of strings defined
+	 */
+	public final int size() {
+		return values.size();
+	}
+
+	/**
+	 * Remove every definition, such as when starting a new stream.
+	 */
+	public final void clear() {
+		values.clear();
+		indices.clear();
+	}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes and decodes the transacted Object of a specific type for a {@link TransactionCodec}.<br>
+ * <br>
+ * Implementations should be stateless, as they may be called from several threads at once.
+ *
+ * @param <T> The type of Object this codec handles
+ */
+public interface ObjectCodec<T> {
+
+	/**
+	 * Write the provided Object to the buffer, starting at its current position.
+	 *
+	 * @param buffer the buffer to write to
+	 * @param object the Object to write
+	 * @throws java.nio.BufferOverflowException if the buffer lacks the room to hold the Object
+	 */
+	void write(ByteBuffer buffer, T object);
+
+	/**
+	 * Read an Object from the buffer.<br>
+	 * The buffer's remaining bytes are exactly those that were written by {@link #write(ByteBuffer, Object)}.
+	 *
+	 * @param buffer the buffer to read from
+	 * @return the decoded Object
+	 */
+	T read(ByteBuffer buffer);
+
+}
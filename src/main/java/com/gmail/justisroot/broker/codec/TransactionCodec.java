@@ -0,0 +1,265 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.codec;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.gmail.justisroot.broker.BrokerInfo;
+import com.gmail.justisroot.broker.record.Sale;
+import com.gmail.justisroot.broker.record.Transaction;
+import com.gmail.justisroot.broker.record.TransactionRecord;
+
+/**
+ * A versioned binary codec for transactions, writing to and reading from {@link ByteBuffer}s.<br>
+ * <br>
+ * Each encoded transaction consists of, in order:<br>
+ * - the format version and a byte of flags<br>
+ * - the timestamp as a variable length integer<br>
+ * - the Broker ID, provider and type name as {@link CodecDictionary} references<br>
+ * - the transaction ID, player and world UUIDs as 16 bytes each, when present<br>
+ * - the volume and the value's scale as zigzag variable length integers<br>
+ * - the value's unscaled value, as a zigzag variable length long when it fits, otherwise as length prefixed two's complement bytes<br>
+ * - the transacted Object as length prefixed bytes, when an {@link ObjectCodec} is registered for its type<br>
+ * <br>
+ * Codecs are thread safe. The {@link CodecDictionary} passed along with each call is not, and belongs to a single stream.
+ */
+public final class TransactionCodec {
+
+	/**
+	 * The format version written by this codec.
+	 */
+	public static final byte VERSION = 1;
+
+	private static final int SALE = 1, LISTING = 2, PLAYER = 4, WORLD = 8, OBJECT = 16, COMPACT = 32, ID = 64;
+
+	private final Map<String, ObjectCodec<?>> codecs = new ConcurrentHashMap<>();
+
+	/**
+	 * Register the codec to use for transacted Objects of the provided type.<br>
+	 * Replaces any codec previously registered for the type.
+	 *
+	 * @param <T> the type of Object transacted
+	 * @param type the Class of the transacted Object, as reported by {@link com.gmail.justisroot.broker.Broker#getType()}
+	 * @param codec the codec for Objects of the type
+	 * @return this
+	 * @throws IllegalArgumentException if either provided arguments are null
+	 */
+	public final <T> TransactionCodec register(Class<T> type, ObjectCodec<T> codec) {
+		if (type == null || codec == null) throw new IllegalArgumentException("No null arguments!");
+		codecs.put(type.getName(), codec);
+		return this;
+	}
+
+	/**
+	 * Encode a transaction into the buffer, starting at its current position.<br>
+	 * <br>
+	 * If the buffer overflows, its position is undefined but the dictionary is left as it was prior to the call.
+	 *
+	 * @param buffer the buffer to write to
+	 * @param dictionary the dictionary of the stream being written
+	 * @param info the BrokerInfo of the Broker that facilitated the transaction
+	 * @param transaction the transaction to encode
+	 * @param timestamp the time of the transaction in milliseconds since the epoch
+	 * @throws java.nio.BufferOverflowException if the buffer lacks the room to hold the transaction
+	 */
+	public final void write(ByteBuffer buffer, CodecDictionary dictionary, BrokerInfo info, Transaction<?> transaction, long timestamp) {
+		int mark = dictionary.size();
+		try {
+			encode(buffer, dictionary, info, transaction, timestamp);
+		} catch (RuntimeException e) {
+			dictionary.truncate(mark);
+			throw e;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void encode(ByteBuffer buffer, CodecDictionary dictionary, BrokerInfo info, Transaction<?> transaction, long timestamp) {
+		Optional<UUID> player = transaction.playerID(), world = transaction.worldID();
+		BigDecimal value = transaction.value();
+		BigInteger unscaled = value.unscaledValue();
+		ObjectCodec<Object> codec = (ObjectCodec<Object>) codecs.get(info.type().getName());
+		int flags = 0;
+		if (transaction.isSale()) flags |= SALE;
+		if (transaction instanceof Sale && ((Sale<?>) transaction).isListing()) flags |= LISTING;
+		if (player.isPresent()) flags |= PLAYER;
+		if (world.isPresent()) flags |= WORLD;
+		if (codec != null) flags |= OBJECT;
+		if (unscaled.bitLength() < 64) flags |= COMPACT;
+		if (transaction instanceof TransactionRecord) flags |= ID;
+		buffer.put(VERSION).put((byte) flags);
+		putVarLong(buffer, timestamp);
+		putString(buffer, dictionary, info.id());
+		putString(buffer, dictionary, info.provider());
+		putString(buffer, dictionary, info.type().getName());
+		if ((flags & ID) != 0) putUUID(buffer, ((TransactionRecord<?>) transaction).id());
+		if (player.isPresent()) putUUID(buffer, player.get());
+		if (world.isPresent()) putUUID(buffer, world.get());
+		putVarInt(buffer, zigzag(transaction.volume()));
+		putVarInt(buffer, zigzag(value.scale()));
+		if ((flags & COMPACT) != 0) putVarLong(buffer, zigzag(unscaled.longValue()));
+		else {
+			byte[] bytes = unscaled.toByteArray();
+			putVarInt(buffer, bytes.length);
+			buffer.put(bytes);
+		}
+		if (codec != null) {
+			int start = buffer.position();
+			buffer.putInt(0);
+			codec.write(buffer, transaction.object());
+			buffer.putInt(start, buffer.position() - start - 4);
+		}
+	}
+
+	/**
+	 * Decode a transaction from the buffer, starting at its current position.<br>
+	 * The buffer is left positioned after the decoded transaction.
+	 *
+	 * @param buffer the buffer to read from
+	 * @param dictionary the dictionary of the stream being read
+	 * @return the decoded transaction
+	 * @throws IllegalArgumentException if the transaction was encoded with an unsupported format version or references an undefined dictionary index
+	 * @throws java.nio.BufferUnderflowException if the buffer ends before the transaction does
+	 */
+	public final TransactionEntry read(ByteBuffer buffer, CodecDictionary dictionary) {
+		byte version = buffer.get();
+		if (version != VERSION) throw new IllegalArgumentException("Unsupported transaction format version " + version);
+		int flags = buffer.get() & 0xFF;
+		long timestamp = getVarLong(buffer);
+		String id = getString(buffer, dictionary), provider = getString(buffer, dictionary), type = getString(buffer, dictionary);
+		Optional<UUID> transactionID = (flags & ID) != 0 ? Optional.of(getUUID(buffer)) : Optional.empty();
+		Optional<UUID> player = (flags & PLAYER) != 0 ? Optional.of(getUUID(buffer)) : Optional.empty();
+		Optional<UUID> world = (flags & WORLD) != 0 ? Optional.of(getUUID(buffer)) : Optional.empty();
+		int volume = unzigzag(getVarInt(buffer));
+		int scale = unzigzag(getVarInt(buffer));
+		BigDecimal value;
+		if ((flags & COMPACT) != 0) value = BigDecimal.valueOf(unzigzag(getVarLong(buffer)), scale);
+		else {
+			byte[] bytes = new byte[getVarInt(buffer)];
+			buffer.get(bytes);
+			value = new BigDecimal(new BigInteger(bytes), scale);
+		}
+		Object object = null;
+		if ((flags & OBJECT) != 0) {
+			int length = buffer.getInt();
+			ObjectCodec<?> codec = codecs.get(type);
+			if (codec != null) {
+				ByteBuffer slice = buffer.slice();
+				slice.limit(length);
+				object = codec.read(slice);
+			}
+			buffer.position(buffer.position() + length);
+		}
+		return new TransactionEntry(transactionID, timestamp, id, provider, type, (flags & SALE) != 0, (flags & LISTING) != 0, player, world, volume, value, object);
+	}
+
+	private static void putString(ByteBuffer buffer, CodecDictionary dictionary, String value) {
+		int index = dictionary.indexOf(value);
+		if (index >= 0) {
+			putVarInt(buffer, index + 1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		putVarInt(buffer, 0);
+		putVarInt(buffer, bytes.length);
+		buffer.put(bytes);
+		dictionary.define(value);
+	}
+
+	private static String getString(ByteBuffer buffer, CodecDictionary dictionary) {
+		int reference = getVarInt(buffer);
+		if (reference > 0) return dictionary.get(reference - 1);
+		byte[] bytes = new byte[getVarInt(buffer)];
+		buffer.get(bytes);
+		String value = new String(bytes, StandardCharsets.UTF_8);
+		dictionary.define(value);
+		return value;
+	}
+
+	private static void putUUID(ByteBuffer buffer, UUID uuid) {
+		buffer.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+	}
+
+	private static UUID getUUID(ByteBuffer buffer) {
+		return new UUID(buffer.getLong(), buffer.getLong());
+	}
+
+	private static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	static void putVarInt(ByteBuffer buffer, int value) {
+		while ((value & ~0x7F) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	static void putVarLong(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	static int getVarInt(ByteBuffer buffer) {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) return value;
+		}
+		throw new IllegalArgumentException("Malformed variable length integer");
+	}
+
+	static long getVarLong(ByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) return value;
+		}
+		throw new IllegalArgumentException("Malformed variable length integer");
+	}
+
+}
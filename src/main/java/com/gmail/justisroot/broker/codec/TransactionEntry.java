@@ -0,0 +1,174 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.codec;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+
+import com.gmail.justisroot.broker.record.Transaction;
+
+/**
+ * A transaction decoded by a {@link TransactionCodec}.<br>
+ * <br>
+ * The transacted Object is only present if a {@link ObjectCodec} was registered for its type on both the encoding and decoding end.
+ */
+public final class TransactionEntry implements Transaction<Object> {
+
+	private final Optional<UUID> transactionID;
+	private final long timestamp;
+	private final String brokerID, provider, typeName;
+	private final boolean sale, listing;
+	private final Optional<UUID> playerID, worldID;
+	private final int volume;
+	private final BigDecimal value;
+	private final Object object;
+
+	TransactionEntry(Optional<UUID> transactionID, long timestamp, String brokerID, String provider, String typeName, boolean sale, boolean listing, Optional<UUID> playerID, Optional<UUID> worldID, int volume, BigDecimal value, Object object) {
+		this.transactionID = transactionID;
+		this.timestamp = timestamp;
+		this.brokerID = brokerID;
+		this.provider = provider;
+		this.typeName = typeName;
+		this.sale = sale;
+		this.listing = listing;
+		this.playerID = playerID;
+		this.worldID = worldID;
+		this.volume = volume;
+		this.value = value;
+		this.object = object;
+	}
+
+	/**
+	 * Get the ID of the encoded transaction.
+	 *
+	 * @return an Optional containing the ID of the transaction, empty if the encoded transaction was not a {@link com.gmail.justisroot.broker.record.TransactionRecord}
+	 */
+	public final Optional<UUID> transactionID() {
+		return this.transactionID;
+	}
+
+	/**
+	 * Get the time at which this transaction was encoded, in milliseconds since the epoch.
+	 *
+	 * @return the time at which this transaction was encoded
+	 */
+	public final long timestamp() {
+		return this.timestamp;
+	}
+
+	/**
+	 * Get the ID of the Broker that facilitated this transaction.
+	 *
+	 * @return the ID of the Broker that facilitated this transaction
+	 */
+	public final String brokerID() {
+		return this.brokerID;
+	}
+
+	/**
+	 * Get the name of the provider of the Broker that facilitated this transaction.
+	 *
+	 * @return the name of the provider of the Broker
+	 */
+	public final String provider() {
+		return this.provider;
+	}
+
+	/**
+	 * Get the fully qualified class name of the Object type the Broker handles.
+	 *
+	 * @return the class name of the Object type the Broker handles
+	 */
+	public final String typeName() {
+		return this.typeName;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final boolean isSale() {
+		return this.sale;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final boolean isPurchase() {
+		return !this.sale;
+	}
+
+	/**
+	 * Was this transaction a listing type sale?
+	 *
+	 * @return true if it was a listing type sale, false otherwise
+	 */
+	public final boolean isListing() {
+		return this.listing;
+	}
+
+	/**
+	 * Get the object that was transacted, if it could be decoded.
+	 *
+	 * @return the object that was transacted, null if no {@link ObjectCodec} was available for its type
+	 */
+	@Override
+	public final Object object() {
+		return this.object;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final Optional<UUID> playerID() {
+		return this.playerID;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final Optional<UUID> worldID() {
+		return this.worldID;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final int volume() {
+		return this.volume;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final BigDecimal value() {
+		return this.value;
+	}
+
+}
@@ -0,0 +1,248 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.events;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.gmail.justisroot.broker.BrokerInfo;
+import com.gmail.justisroot.broker.record.PurchaseRecord;
+import com.gmail.justisroot.broker.record.SaleRecord;
+import com.gmail.justisroot.broker.record.TransactionRecord;
+
+/**
+ * Dispatches sale and purchase events to their listeners from dedicated consumer threads, rather than from the thread completing the transaction.<br>
+ * <br>
+ * Events are published into a preallocated ring buffer. Each slot carries a sequence number, which publishers and consumers claim slots by,
+ * so that neither side locks or allocates while the buffer is neither full nor empty.<br>
+ * Once closed, consumers keep dispatching until every publisher that saw the dispatcher open has finished, so that no accepted event is left behind in the buffer.
+ */
+public final class AsyncDispatcher {
+
+	private static final int SPIN_TRIES = 100, YIELD_TRIES = 200;
+	private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	private final BrokerEventService service;
+	private final DispatchSettings settings;
+	private final int mask;
+	private final AtomicLongArray sequences;
+	private final BrokerInfo[] infos;
+	private final TransactionRecord<?>[] records;
+	private final AtomicLong head = new AtomicLong(), tail = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong(), overflows = new AtomicLong(), dispatched = new AtomicLong();
+	private final AtomicInteger publishing = new AtomicInteger();
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+	private final Thread[] consumers;
+
+	private volatile int waiting;
+	private volatile boolean running = true;
+
+	AsyncDispatcher(BrokerEventService service, DispatchSettings settings) {
+		this.service = service;
+		this.settings = settings;
+		this.mask = settings.capacity() - 1;
+		this.sequences = new AtomicLongArray(settings.capacity());
+		this.infos = new BrokerInfo[settings.capacity()];
+		this.records = new TransactionRecord<?>[settings.capacity()];
+		for (int i = 0; i < settings.capacity(); i++) sequences.set(i, i);
+		this.consumers = new Thread[settings.consumers()];
+		for (int i = 0; i < consumers.length; i++) {
+			consumers[i] = new Thread(this::consume, "BrokerAPI Event Dispatcher " + i);
+			consumers[i].setDaemon(true);
+			consumers[i].start();
+		}
+	}
+
+	/**
+	 * Publish an event to be dispatched by a consumer thread, or handle it per the {@link OverflowPolicy} if the buffer is full.
+	 *
+	 * @param info the BrokerInfo of the Broker associated with the event
+	 * @param record the completed SaleRecord or PurchaseRecord
+	 * @return true if the event was published or dropped, false if this dispatcher has been closed and the event should be dispatched by the caller
+	 */
+	final boolean publish(BrokerInfo info, TransactionRecord<?> record) {
+		publishing.incrementAndGet();
+		try {
+			if (!running) return false;
+			if (offer(info, record)) return true;
+			OverflowPolicy policy = settings.overflowPolicy();
+			if (policy == OverflowPolicy.DROP || (policy == OverflowPolicy.SAMPLE && overflows.incrementAndGet() % settings.sampleRate() != 0)) {
+				dropped.incrementAndGet();
+				return true;
+			}
+			for (int tries = 0; !offer(info, record); tries++) {
+				if (!running) return false;
+				idle(WaitStrategy.SLEEPING, tries);
+			}
+			return true;
+		} finally {
+			publishing.decrementAndGet();
+		}
+	}
+
+	private boolean offer(BrokerInfo info, TransactionRecord<?> record) {
+		while (true) {
+			long position = tail.get();
+			int index = (int) position & mask;
+			long difference = sequences.get(index) - position;
+			if (difference < 0) return false;
+			if (difference > 0 || !tail.compareAndSet(position, position + 1)) continue;
+			infos[index] = info;
+			records[index] = record;
+			sequences.set(index, position + 1);
+			if (waiting > 0) signal();
+			return true;
+		}
+	}
+
+	private void signal() {
+		lock.lock();
+		try {
+			available.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void consume() {
+		int tries = 0;
+		while (true) {
+			long position = head.get();
+			int index = (int) position & mask;
+			long difference = sequences.get(index) - (position + 1);
+			if (difference < 0) {
+				if (!running && publishing.get() == 0 && position == tail.get()) return;
+				await(tries++);
+				continue;
+			}
+			if (difference > 0 || !head.compareAndSet(position, position + 1)) continue;
+			tries = 0;
+			BrokerInfo info = infos[index];
+			TransactionRecord<?> record = records[index];
+			infos[index] = null;
+			records[index] = null;
+			sequences.set(index, position + mask + 1);
+			try {
+				if (record instanceof SaleRecord) service.dispatchSaleEvent(info, (SaleRecord<?>) record);
+				else service.dispatchPurchaseEvent(info, (PurchaseRecord<?>) record);
+			} catch (RuntimeException | Error e) {
+				Thread thread = Thread.currentThread();
+				thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+			}
+			dispatched.incrementAndGet();
+		}
+	}
+
+	private void await(int tries) {
+		if (settings.waitStrategy() != WaitStrategy.BLOCKING) {
+			idle(settings.waitStrategy(), tries);
+			return;
+		}
+		lock.lock();
+		try {
+			waiting++;
+			if (running && head.get() == tail.get()) available.await(1, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			waiting--;
+			lock.unlock();
+		}
+	}
+
+	private static void idle(WaitStrategy strategy, int tries) {
+		if (strategy == WaitStrategy.BUSY_SPIN || tries < SPIN_TRIES) Thread.onSpinWait();
+		else if (strategy == WaitStrategy.YIELDING || tries < SPIN_TRIES + YIELD_TRIES) Thread.yield();
+		else LockSupport.parkNanos(PARK_NANOS);
+	}
+
+	/**
+	 * Get the number of events published but not yet taken by a consumer.
+	 *
+	 * @return the current depth of the queue
+	 */
+	public final int queueDepth() {
+		return (int) Math.max(0, tail.get() - head.get());
+	}
+
+	/**
+	 * Get the capacity of the ring buffer.
+	 *
+	 * @return the capacity of the ring buffer
+	 */
+	public final int capacity() {
+		return settings.capacity();
+	}
+
+	/**
+	 * Get the number of events dropped because the ring buffer was full.
+	 *
+	 * @return the number of events dropped
+	 */
+	public final long dropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * Get the number of events dispatched to their listeners.
+	 *
+	 * @return the number of events dispatched
+	 */
+	public final long dispatched() {
+		return dispatched.get();
+	}
+
+	/**
+	 * Stop accepting events and wait for the consumers to dispatch those already queued, including those of publishers still in progress.
+	 *
+	 * @param timeout the maximum time to wait for the queue to drain, in milliseconds
+	 * @return true if every queued event was dispatched, false if the timeout elapsed first
+	 */
+	final boolean close(long timeout) {
+		running = false;
+		signalAll();
+		long deadline = System.currentTimeMillis() + timeout;
+		try {
+			for (Thread consumer : consumers) consumer.join(Math.max(1, deadline - System.currentTimeMillis()));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return queueDepth() == 0;
+	}
+
+	private void signalAll() {
+		lock.lock();
+		try {
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+}
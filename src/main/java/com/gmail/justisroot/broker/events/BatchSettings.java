@@ -0,0 +1,104 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.events;
+
+/**
+ * Settings for buffering events for a batch listener.<br>
+ * <br>
+ * A batch is delivered once it holds {@link #maxSize()} events, or once {@link #maxDelay()} milliseconds have passed since the previous delivery, whichever comes first.
+ * Alternatively, batches may be delivered on each server tick instead of after a delay.<br>
+ * Defaults to batches of up to 500 events, delivered at least once per second.
+ */
+public final class BatchSettings {
+
+	private int maxSize = 500;
+	private long maxDelay = 1000;
+	private boolean flushOnTick;
+
+	/**
+	 * Get the number of events that triggers delivery of a batch.
+	 *
+	 * @return the maximum size of a batch
+	 */
+	public int maxSize() {
+		return this.maxSize;
+	}
+
+	/**
+	 * Set the number of events that triggers delivery of a batch.
+	 *
+	 * @param maxSize the maximum size of a batch, at least 1
+	 * @return this
+	 * @throws IllegalArgumentException if the size is less than 1
+	 */
+	public BatchSettings setMaxSize(int maxSize) {
+		if (maxSize < 1) throw new IllegalArgumentException("Batches must hold at least one event");
+		this.maxSize = maxSize;
+		return this;
+	}
+
+	/**
+	 * Get the longest time in milliseconds an event is buffered before its batch is delivered.
+	 *
+	 * @return the maximum delay in milliseconds
+	 */
+	public long maxDelay() {
+		return this.maxDelay;
+	}
+
+	/**
+	 * Set the longest time in milliseconds an event is buffered before its batch is delivered.<br>
+	 * Ignored when flushing on the server tick.
+	 *
+	 * @param maxDelay the maximum delay in milliseconds, greater than 0
+	 * @return this
+	 * @throws IllegalArgumentException if the delay is not positive
+	 */
+	public BatchSettings setMaxDelay(long maxDelay) {
+		if (maxDelay < 1) throw new IllegalArgumentException("Delay must be positive");
+		this.maxDelay = maxDelay;
+		return this;
+	}
+
+	/**
+	 * Get whether batches are delivered on each server tick rather than after a delay.
+	 *
+	 * @return true if batches are delivered on each server tick
+	 */
+	public boolean flushOnTick() {
+		return this.flushOnTick;
+	}
+
+	/**
+	 * Set whether batches are delivered on each server tick, through {@link BrokerEventService#tick()}, rather than after a delay.<br>
+	 * Batches reaching the maximum size are delivered immediately either way.
+	 *
+	 * @param flushOnTick true to deliver batches on each server tick
+	 * @return this
+	 */
+	public BatchSettings setFlushOnTick(boolean flushOnTick) {
+		this.flushOnTick = flushOnTick;
+		return this;
+	}
+
+}
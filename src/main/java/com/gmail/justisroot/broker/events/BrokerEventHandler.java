@@ -24,8 +24,15 @@ package com.gmail.justisroot.broker.events;
 
 import com.gmail.justisroot.broker.BrokerInfo;
 
-interface BrokerEventHandler {
+/**
+ * Handles the registration or unregistration of a Broker.
+ */
+public interface BrokerEventHandler {
 
+	/**
+	 * Run the event
+	 * @param info the BrokerInfo of the Broker that was registered or unregistered
+	 */
 	void run(BrokerInfo info);
 
 }
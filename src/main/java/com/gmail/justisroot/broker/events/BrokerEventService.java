@@ -22,25 +22,52 @@
  */
 package com.gmail.justisroot.broker.events;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
 import com.gmail.justisroot.broker.BrokerInfo;
+import com.gmail.justisroot.broker.events.HandlerList.Registration;
+import com.gmail.justisroot.broker.journal.TransactionJournal;
 import com.gmail.justisroot.broker.record.PreProcessPurchaseRecord;
 import com.gmail.justisroot.broker.record.PreProcessSaleRecord;
 import com.gmail.justisroot.broker.record.PurchaseRecord;
 import com.gmail.justisroot.broker.record.SaleRecord;
+import com.gmail.justisroot.broker.record.TransactionRecord;
 
 /**
- * The internal BrokerAPI event service.
+ * The internal BrokerAPI event service.<br>
+ * <br>
+ * Any number of listeners may be added for each event type, each run in order of its {@link EventPriority}.<br>
+ * Listeners may be scoped by an {@link EventFilter}, in which case they only run for the events of matching Brokers.<br>
+ * A pre-process event is cancelled once any of its listeners cancels it, after which listeners added with {@code ignoreCancelled} are skipped.<br>
+ * Side-effect-free pre-process listeners may instead be added as vetoes, which are evaluated concurrently before any other pre-process listener, until the first veto.<br>
+ * Sale and purchase events may optionally be dispatched asynchronously, see {@link AsyncDispatcher}.<br>
+ * Batch listeners receive completed sales and purchases in bulk, as buffered according to their {@link BatchSettings}.
  */
 public final class BrokerEventService {
 
 	private static final BrokerEventService INSTANCE = new BrokerEventService();
 
-	private BrokerEventHandler regHandler;
-	private BrokerEventHandler unregHandler;
-	private SaleEventHandler saleHandler;
-	private PurchaseEventHandler purchaseHandler;
-	private SalePreProcessEventHandler salePreProcessHandler;
-	private PurchasePreProcessEventHandler purchasePreProcessHandler;
+	private final HandlerList<BrokerEventHandler> regHandlers = new HandlerList<>();
+	private final HandlerList<BrokerEventHandler> unregHandlers = new HandlerList<>();
+	private final HandlerList<SaleEventHandler> saleHandlers = new HandlerList<>();
+	private final HandlerList<PurchaseEventHandler> purchaseHandlers = new HandlerList<>();
+	private final HandlerList<SalePreProcessEventHandler> salePreProcessHandlers = new HandlerList<>();
+	private final HandlerList<PurchasePreProcessEventHandler> purchasePreProcessHandlers = new HandlerList<>();
+	private final HandlerList<SalePreProcessEventHandler> saleVetoes = new HandlerList<>();
+	private final HandlerList<PurchasePreProcessEventHandler> purchaseVetoes = new HandlerList<>();
+	private volatile VetoEvaluator vetoEvaluator;
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private volatile EventBatcher<SaleRecord<?>>[] saleBatchers = new EventBatcher[0];
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private volatile EventBatcher<PurchaseRecord<?>>[] purchaseBatchers = new EventBatcher[0];
+	private ScheduledExecutorService batchFlusher;
+	private volatile TransactionJournal journal;
+	private volatile AsyncDispatcher dispatcher;
 
 	private BrokerEventService() {}
 
@@ -54,27 +81,482 @@ public final class BrokerEventService {
 	}
 
 	final void setRegistrationHandler(BrokerEventHandler handler) {
-		this.regHandler = handler;
+		regHandlers.assign(handler);
 	}
 
 	final void setUnregistrationHandler(BrokerEventHandler handler) {
-		this.unregHandler = handler;
+		unregHandlers.assign(handler);
 	}
 
 	final void setPurchaseHandler(PurchaseEventHandler handler) {
-		this.purchaseHandler = handler;
+		purchaseHandlers.assign(handler);
 	}
 
 	final void setSaleHandler(SaleEventHandler handler) {
-		this.saleHandler = handler;
+		saleHandlers.assign(handler);
 	}
 
 	final void setSalePreProcessHandler(SalePreProcessEventHandler handler) {
-		this.salePreProcessHandler = handler;
+		salePreProcessHandlers.assign(handler);
 	}
 
 	final void setPurchasePreProcessHandler(PurchasePreProcessEventHandler handler) {
-		this.purchasePreProcessHandler = handler;
+		purchasePreProcessHandlers.assign(handler);
+	}
+
+	/**
+	 * Add a listener for Broker registrations.
+	 *
+	 * @param priority the priority of the listener
+	 * @param handler the listener
+	 * @return true if the listener was added, false if it was already present
+	 */
+	public final boolean addRegistrationListener(EventPriority priority, BrokerEventHandler handler) {
+		return regHandlers.add(priority, false, handler);
+	}
+
+	/**
+	 * Add a listener, scoped by a filter, for Broker registrations.
+	 *
+	 * @param priority the priority of the listener
+	 * @param filter the filter for the Brokers whose events the listener receives
+	 * @param handler the listener
+	 * @return true if the listener was added, false if it was already present
+	 */
+	public final boolean addRegistrationListener(EventPriority priority, EventFilter filter, BrokerEventHandler handler) {
+		return regHandlers.add(priority, false, filter, handler);
+	}
+
+	/**
+	 * Remove a listener for Broker registrations.
+	 *
+	 * @param handler the listener
+	 * @return true if the listener was removed, false if it wasn't present
+	 */
+	public final boolean removeRegistrationListener(BrokerEventHandler handler) {
+		return regHandlers.remove(handler);
+	}
+
+	/**
+	 * Add a listener for Broker unregistrations.
+	 *
+	 * @param priority the priority of the listener
+	 * @param handler the listener
+	 * @return true if the listener was added, false if it was already present
+	 */
+	public final boolean addUnregistrationListener(EventPriority priority, BrokerEventHandler handler) {
+		return unregHandlers.add(priority, false, handler);
+	}
+
+	/**
+	 * Add a listener, scoped by a filter, for Broker unregistrations.
+	 *
+	 * @param priority the priority of the listener
+	 * @param filter the filter for the Brokers whose events the listener receives
+	 * @param handler the listener
+	 * @return true if the listener was added, false if it was already present
+	 */
+	public final boolean addUnregistrationListener(EventPriority priority, EventFilter filter, BrokerEventHandler handler) {
+		return unregHandlers.add(priority, false, filter, handler);
+	}
+
+	/**
+	 * Remove a listener for Broker unregistrations.
+	 *
+	 * @param handler the listener
+	 * @return true if the listener was removed, false if it wasn't present
+	 */
+	public final boolean removeUnregistrationListener(BrokerEventHandler handler) {
+		return unregHandlers.remove(handler);
+	}
+
+	/**
+	 * Add a listener for completed sales.
+	 *
+	 * @param priority the priority of the listener
+	 * @param handler the listener
+	 * @return true if the listener was added, false if it was already present
+	 */
+	public final boolean addSaleListener(EventPriority priority, SaleEventHandler handler) {
+		return saleHandlers.add(priority, false, handler);
+	}
+
+	/**
+	 * Add a listener, scoped by a filter, for completed sales.
+	 *
+	 * @param priority the priority of the listener
+	 * @param filter the filter for the Brokers whose events the listener receives
+	 * @param handler the listener
+	 * @return true if the listener was added, false if it was already present
+	 */
+	public final boolean addSaleListener(EventPriority priority, EventFilter filter, SaleEventHandler handler) {
+		return saleHandlers.add(priority, false, filter, handler);
+	}
+
+	/**
+	 * Remove a listener for completed sales.
+	 *
+	 * @param handler the listener
+	 * @return true if the listener was removed, false if it wasn't present
+	 */
+	public final boolean removeSaleListener(SaleEventHandler handler) {
+		return saleHandlers.remove(handler);
+	}
+
+	/**
+	 * Add a listener for completed purchases.
+	 *
+	 * @param priority the priority of the listener
+	 * @param handler the listener
+	 * @return true if the listener was added, false if it was already present
+	 */
+	public final boolean addPurchaseListener(EventPriority priority, PurchaseEventHandler handler) {
+		return purchaseHandlers.add(priority, false, handler);
+	}
+
+	/**
+	 * Add a listener, scoped by a filter, for completed purchases.
+	 *
+	 * @param priority the priority of the listener
+	 * @param filter the filter for the Brokers whose events the listener receives
+	 * @param handler the listener
+	 * @return true if the listener was added, false if it was already present
+	 */
+	public final boolean addPurchaseListener(EventPriority priority, EventFilter filter, PurchaseEventHandler handler) {
+		return purchaseHandlers.add(priority, false, filter, handler);
+	}
+
+	/**
+	 * Remove a listener for completed purchases.
+	 *
+	 * @param handler the listener
+	 * @return true if the listener was removed, false if it wasn't present
+	 */
+	public final boolean removePurchaseListener(PurchaseEventHandler handler) {
+		return purchaseHandlers.remove(handler);
+	}
+
+	/**
+	 * Add a listener for sales prior to their record being built.
+	 *
+	 * @param priority the priority of the listener
+	 * @param ignoreCancelled true if the listener should not run for sales already cancelled by a prior listener
+	 * @param handler the listener, returning true to cancel the sale
+	 * @return true if the listener was added, false if it was already present
+	 */
+	public final boolean addSalePreProcessListener(EventPriority priority, boolean ignoreCancelled, SalePreProcessEventHandler handler) {
+		return salePreProcessHandlers.add(priority, ignoreCancelled, handler);
+	}
+
+	/**
+	 * Add a listener, scoped by a filter, for sales prior to their record being built.
+	 *
+	 * @param priority the priority of the listener
+	 * @param ignoreCancelled true if the listener should not run for sales already cancelled by a prior listener
+	 * @param filter the filter for the Brokers whose events the listener receives
+	 * @param handler the listener, returning true to cancel the sale
+	 * @return true if the listener was added, false if it was already present
+	 */
+	public final boolean addSalePreProcessListener(EventPriority priority, boolean ignoreCancelled, EventFilter filter, SalePreProcessEventHandler handler) {
+		return salePreProcessHandlers.add(priority, ignoreCancelled, filter, handler);
+	}
+
+	/**
+	 * Remove a listener for sales prior to their record being built.
+	 *
+	 * @param handler the listener
+	 * @return true if the listener was removed, false if it wasn't present
+	 */
+	public final boolean removeSalePreProcessListener(SalePreProcessEventHandler handler) {
+		return salePreProcessHandlers.remove(handler);
+	}
+
+	/**
+	 * Add a listener for purchases prior to their record being built.
+	 *
+	 * @param priority the priority of the listener
+	 * @param ignoreCancelled true if the listener should not run for purchases already cancelled by a prior listener
+	 * @param handler the listener, returning true to cancel the purchase
+	 * @return true if the listener was added, false if it was already present
+	 */
+	public final boolean addPurchasePreProcessListener(EventPriority priority, boolean ignoreCancelled, PurchasePreProcessEventHandler handler) {
+		return purchasePreProcessHandlers.add(priority, ignoreCancelled, handler);
+	}
+
+	/**
+	 * Add a listener, scoped by a filter, for purchases prior to their record being built.
+	 *
+	 * @param priority the priority of the listener
+	 * @param ignoreCancelled true if the listener should not run for purchases already cancelled by a prior listener
+	 * @param filter the filter for the Brokers whose events the listener receives
+	 * @param handler the listener, returning true to cancel the purchase
+	 * @return true if the listener was added, false if it was already present
+	 */
+	public final boolean addPurchasePreProcessListener(EventPriority priority, boolean ignoreCancelled, EventFilter filter, PurchasePreProcessEventHandler handler) {
+		return purchasePreProcessHandlers.add(priority, ignoreCancelled, filter, handler);
+	}
+
+	/**
+	 * Remove a listener for purchases prior to their record being built.
+	 *
+	 * @param handler the listener
+	 * @return true if the listener was removed, false if it wasn't present
+	 */
+	public final boolean removePurchasePreProcessListener(PurchasePreProcessEventHandler handler) {
+		return purchasePreProcessHandlers.remove(handler);
+	}
+
+	/**
+	 * Add a side-effect-free listener for sales prior to their record being built, to be evaluated concurrently with the other vetoes.<br>
+	 * Vetoes may run on any thread, and may be skipped altogether once another veto has cancelled the sale, so they must not modify any state
+	 * other than calling {@link com.gmail.justisroot.broker.record.PreProcessTransactionRecord#cancel(String)}.
+	 * Every veto that started has finished before the record is passed on to the other pre-process listeners.
+	 *
+	 * @param handler the veto, returning true or calling {@link com.gmail.justisroot.broker.record.PreProcessTransactionRecord#cancel(String)} to cancel the sale
+	 * @return true if the veto was added, false if it was already present
+	 */
+	public final boolean addSaleVeto(SalePreProcessEventHandler handler) {
+		return addSaleVeto(null, handler);
+	}
+
+	/**
+	 * Add a side-effect-free listener, scoped by a filter, for sales prior to their record being built, to be evaluated concurrently with the other vetoes.<br>
+	 * Vetoes may run on any thread, and may be skipped altogether once another veto has cancelled the sale, so they must not modify any state
+	 * other than calling {@link com.gmail.justisroot.broker.record.PreProcessTransactionRecord#cancel(String)}.
+	 * Every veto that started has finished before the record is passed on to the other pre-process listeners.
+	 *
+	 * @param filter the filter for the Brokers whose events the veto receives, null for every Broker
+	 * @param handler the veto, returning true or calling {@link com.gmail.justisroot.broker.record.PreProcessTransactionRecord#cancel(String)} to cancel the sale
+	 * @return true if the veto was added, false if it was already present
+	 */
+	public final boolean addSaleVeto(EventFilter filter, SalePreProcessEventHandler handler) {
+		if (vetoEvaluator == null) initVetoEvaluator();
+		return saleVetoes.add(EventPriority.NORMAL, false, filter, handler);
+	}
+
+	/**
+	 * Remove a side-effect-free listener for sales prior to their record being built.
+	 *
+	 * @param handler the veto
+	 * @return true if the veto was removed, false if it wasn't present
+	 */
+	public final boolean removeSaleVeto(SalePreProcessEventHandler handler) {
+		return saleVetoes.remove(handler);
+	}
+
+	/**
+	 * Add a side-effect-free listener for purchases prior to their record being built, to be evaluated concurrently with the other vetoes.<br>
+	 * Vetoes may run on any thread, and may be skipped altogether once another veto has cancelled the purchase, so they must not modify any state
+	 * other than calling {@link com.gmail.justisroot.broker.record.PreProcessTransactionRecord#cancel(String)}.
+	 * Every veto that started has finished before the record is passed on to the other pre-process listeners.
+	 *
+	 * @param handler the veto, returning true or calling {@link com.gmail.justisroot.broker.record.PreProcessTransactionRecord#cancel(String)} to cancel the purchase
+	 * @return true if the veto was added, false if it was already present
+	 */
+	public final boolean addPurchaseVeto(PurchasePreProcessEventHandler handler) {
+		return addPurchaseVeto(null, handler);
+	}
+
+	/**
+	 * Add a side-effect-free listener, scoped by a filter, for purchases prior to their record being built, to be evaluated concurrently with the other vetoes.<br>
+	 * Vetoes may run on any thread, and may be skipped altogether once another veto has cancelled the purchase, so they must not modify any state
+	 * other than calling {@link com.gmail.justisroot.broker.record.PreProcessTransactionRecord#cancel(String)}.
+	 * Every veto that started has finished before the record is passed on to the other pre-process listeners.
+	 *
+	 * @param filter the filter for the Brokers whose events the veto receives, null for every Broker
+	 * @param handler the veto, returning true or calling {@link com.gmail.justisroot.broker.record.PreProcessTransactionRecord#cancel(String)} to cancel the purchase
+	 * @return true if the veto was added, false if it was already present
+	 */
+	public final boolean addPurchaseVeto(EventFilter filter, PurchasePreProcessEventHandler handler) {
+		if (vetoEvaluator == null) initVetoEvaluator();
+		return purchaseVetoes.add(EventPriority.NORMAL, false, filter, handler);
+	}
+
+	/**
+	 * Remove a side-effect-free listener for purchases prior to their record being built.
+	 *
+	 * @param handler the veto
+	 * @return true if the veto was removed, false if it wasn't present
+	 */
+	public final boolean removePurchaseVeto(PurchasePreProcessEventHandler handler) {
+		return purchaseVetoes.remove(handler);
+	}
+
+	private synchronized void initVetoEvaluator() {
+		if (vetoEvaluator == null) vetoEvaluator = new VetoEvaluator();
+	}
+
+	/**
+	 * Add a listener for completed sales, delivered in batches.
+	 *
+	 * @param settings the settings for buffering the sales of this listener
+	 * @param handler the listener
+	 * @return true if the listener was added, false if it was already present
+	 */
+	public final boolean addSaleBatchListener(BatchSettings settings, SaleBatchHandler handler) {
+		if (settings == null || handler == null) throw new IllegalArgumentException("No null arguments!");
+		synchronized (this) {
+			if (indexOf(saleBatchers, handler) != -1) return false;
+			saleBatchers = append(saleBatchers, schedule(new EventBatcher<>(handler, settings, guard(handler::run))));
+			return true;
+		}
+	}
+
+	/**
+	 * Remove a listener for completed sales delivered in batches, delivering its remaining buffered sales first.
+	 *
+	 * @param handler the listener
+	 * @return true if the listener was removed, false if it wasn't present
+	 */
+	public final boolean removeSaleBatchListener(SaleBatchHandler handler) {
+		EventBatcher<SaleRecord<?>> batcher;
+		synchronized (this) {
+			int index = indexOf(saleBatchers, handler);
+			if (index == -1) return false;
+			batcher = saleBatchers[index];
+			saleBatchers = removeAt(saleBatchers, index);
+		}
+		retire(batcher);
+		return true;
+	}
+
+	/**
+	 * Add a listener for completed purchases, delivered in batches.
+	 *
+	 * @param settings the settings for buffering the purchases of this listener
+	 * @param handler the listener
+	 * @return true if the listener was added, false if it was already present
+	 */
+	public final boolean addPurchaseBatchListener(BatchSettings settings, PurchaseBatchHandler handler) {
+		if (settings == null || handler == null) throw new IllegalArgumentException("No null arguments!");
+		synchronized (this) {
+			if (indexOf(purchaseBatchers, handler) != -1) return false;
+			purchaseBatchers = append(purchaseBatchers, schedule(new EventBatcher<>(handler, settings, guard(handler::run))));
+			return true;
+		}
+	}
+
+	/**
+	 * Remove a listener for completed purchases delivered in batches, delivering its remaining buffered purchases first.
+	 *
+	 * @param handler the listener
+	 * @return true if the listener was removed, false if it wasn't present
+	 */
+	public final boolean removePurchaseBatchListener(PurchaseBatchHandler handler) {
+		EventBatcher<PurchaseRecord<?>> batcher;
+		synchronized (this) {
+			int index = indexOf(purchaseBatchers, handler);
+			if (index == -1) return false;
+			batcher = purchaseBatchers[index];
+			purchaseBatchers = removeAt(purchaseBatchers, index);
+		}
+		retire(batcher);
+		return true;
+	}
+
+	/**
+	 * Deliver the buffered batches of every batch listener set to flush on the server tick.<br>
+	 * To be called by the implementation once per server tick, from the server thread.
+	 */
+	public final void tick() {
+		for (EventBatcher<?> batcher : saleBatchers) if (batcher.settings.flushOnTick()) batcher.flush();
+		for (EventBatcher<?> batcher : purchaseBatchers) if (batcher.settings.flushOnTick()) batcher.flush();
+	}
+
+	/**
+	 * Deliver the buffered batches of every batch listener, regardless of their settings.<br>
+	 * To be called by the implementation prior to shutting down.
+	 */
+	public final void flushBatches() {
+		for (EventBatcher<?> batcher : saleBatchers) batcher.flush();
+		for (EventBatcher<?> batcher : purchaseBatchers) batcher.flush();
+	}
+
+	private static <R> Consumer<List<R>> guard(Consumer<List<R>> delivery) {
+		return batch -> {
+			try {
+				delivery.accept(batch);
+			} catch (RuntimeException e) {
+				Thread thread = Thread.currentThread();
+				thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+			}
+		};
+	}
+
+	private <R> EventBatcher<R> schedule(EventBatcher<R> batcher) {
+		if (batcher.settings.flushOnTick()) return batcher;
+		if (batchFlusher == null) {
+			batchFlusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "BrokerAPI Batch Flusher");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		long delay = batcher.settings.maxDelay();
+		batcher.schedule = batchFlusher.scheduleAtFixedRate(batcher::flush, delay, delay, TimeUnit.MILLISECONDS);
+		return batcher;
+	}
+
+	private static void retire(EventBatcher<?> batcher) {
+		if (batcher.schedule != null) batcher.schedule.cancel(false);
+		batcher.flush();
+	}
+
+	private static int indexOf(EventBatcher<?>[] batchers, Object handler) {
+		for (int i = 0; i < batchers.length; i++) if (batchers[i].handler == handler) return i;
+		return -1;
+	}
+
+	private static <R> EventBatcher<R>[] append(EventBatcher<R>[] batchers, EventBatcher<R> batcher) {
+		EventBatcher<R>[] copy = Arrays.copyOf(batchers, batchers.length + 1);
+		copy[batchers.length] = batcher;
+		return copy;
+	}
+
+	private static <R> EventBatcher<R>[] removeAt(EventBatcher<R>[] batchers, int index) {
+		EventBatcher<R>[] copy = Arrays.copyOf(batchers, batchers.length - 1);
+		System.arraycopy(batchers, index + 1, copy, index, batchers.length - index - 1);
+		return copy;
+	}
+
+	/**
+	 * Set the journal that every completed transaction is appended to, prior to its transaction event.<br>
+	 * A transaction that can't be journaled, such as once the journal is closed, is reported to the uncaught exception handler of the completing thread, and its event still runs.
+	 *
+	 * @param journal the journal to append completed transactions to, null to stop journaling
+	 */
+	final void setJournal(TransactionJournal journal) {
+		this.journal = journal;
+	}
+
+	/**
+	 * Get the journal that completed transactions are appended to.
+	 *
+	 * @return the journal that completed transactions are appended to, null if none
+	 */
+	public final TransactionJournal journal() {
+		return this.journal;
+	}
+
+	/**
+	 * Dispatch sale and purchase events asynchronously with the provided settings, or synchronously again.<br>
+	 * Any previous dispatcher is closed once the new one is in place, waiting up to a second for its queued events to be dispatched.
+	 *
+	 * @param settings the settings for asynchronous dispatch, null to dispatch synchronously
+	 */
+	final void setAsyncDispatch(DispatchSettings settings) {
+		AsyncDispatcher previous = this.dispatcher;
+		this.dispatcher = settings == null ? null : new AsyncDispatcher(this, settings);
+		if (previous != null) previous.close(1000);
+	}
+
+	/**
+	 * Get the dispatcher sale and purchase events are dispatched through.
+	 *
+	 * @return the asynchronous dispatcher, null if events are dispatched synchronously
+	 */
+	public final AsyncDispatcher asyncDispatcher() {
+		return this.dispatcher;
 	}
 
 	/**
@@ -82,15 +564,26 @@ public final class BrokerEventService {
 	 * @param info the BrokerInfo for the Broker associated with this event
 	 */
 	public final void createRegistrationEvent(BrokerInfo info) {
-		if (regHandler != null) regHandler.run(info);
+		for (Registration<BrokerEventHandler> registration : regHandlers.registrations(info)) registration.handler.run(info);
+	}
+
+	/**
+	 * Generate a BrokerRegistrationEvent for each of the provided Brokers, registered together
+	 * @param infos the BrokerInfo for each Broker associated with these events, in order of registration
+	 */
+	public final void createRegistrationEvents(List<BrokerInfo> infos) {
+		for (BrokerInfo info : infos) {
+			for (Registration<BrokerEventHandler> registration : regHandlers.registrations(info)) registration.handler.run(info);
+		}
 	}
 
 	/**
-	 * Generate a BrokerUnregistrationEvent
+	 * Generate a BrokerUnregistrationEvent, then forget the dispatch tables resolved for the Broker
 	 * @param info the BrokerInfo for the broker associated with this event
 	 */
 	public final void createUnregistrationEvent(BrokerInfo info) {
-		if (unregHandler != null) unregHandler.run(info);
+		for (Registration<BrokerEventHandler> registration : unregHandlers.registrations(info)) registration.handler.run(info);
+		for (HandlerList<?> handlers : List.of(regHandlers, unregHandlers, saleHandlers, purchaseHandlers, salePreProcessHandlers, purchasePreProcessHandlers, saleVetoes, purchaseVetoes)) handlers.forget(info);
 	}
 
 	/**
@@ -99,7 +592,25 @@ public final class BrokerEventService {
 	 * @param record the PurchaseRecord associated with this event
 	 */
 	public final void createPurchaseEvent(BrokerInfo info, PurchaseRecord<?> record) {
-		if (purchaseHandler != null) purchaseHandler.run(info, record);
+		journal(info, record);
+		AsyncDispatcher dispatcher = this.dispatcher;
+		if (dispatcher == null || !dispatcher.publish(info, record)) dispatchPurchaseEvent(info, record);
+	}
+
+	private void journal(BrokerInfo info, TransactionRecord<?> record) {
+		TransactionJournal journal = this.journal;
+		if (journal == null) return;
+		try {
+			journal.append(info, record);
+		} catch (RuntimeException e) {
+			Thread thread = Thread.currentThread();
+			thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+		}
+	}
+
+	final void dispatchPurchaseEvent(BrokerInfo info, PurchaseRecord<?> record) {
+		for (Registration<PurchaseEventHandler> registration : purchaseHandlers.registrations(info)) registration.handler.run(info, record);
+		for (EventBatcher<PurchaseRecord<?>> batcher : purchaseBatchers) batcher.add(record);
 	}
 
 	/**
@@ -108,7 +619,14 @@ public final class BrokerEventService {
 	 * @param record the SaleRecord associated with this event
 	 */
 	public final void createSaleEvent(BrokerInfo info, SaleRecord<?> record) {
-		if (saleHandler != null) saleHandler.run(info, record);
+		journal(info, record);
+		AsyncDispatcher dispatcher = this.dispatcher;
+		if (dispatcher == null || !dispatcher.publish(info, record)) dispatchSaleEvent(info, record);
+	}
+
+	final void dispatchSaleEvent(BrokerInfo info, SaleRecord<?> record) {
+		for (Registration<SaleEventHandler> registration : saleHandlers.registrations(info)) registration.handler.run(info, record);
+		for (EventBatcher<SaleRecord<?>> batcher : saleBatchers) batcher.add(record);
 	}
 
 	/**
@@ -118,8 +636,13 @@ public final class BrokerEventService {
 	 * @return true if the event was cancelled, false otherwise
 	 */
 	public final boolean createSalePreProcessEvent(BrokerInfo info, PreProcessSaleRecord record) {
-		if (salePreProcessHandler != null) return salePreProcessHandler.run(info, record);
-		return false;
+		VetoEvaluator evaluator = this.vetoEvaluator;
+		boolean cancelled = evaluator != null && evaluator.evaluate(saleVetoes.registrations(info), handler -> handler.run(info, record) || record.isCancelled());
+		for (Registration<SalePreProcessEventHandler> registration : salePreProcessHandlers.registrations(info)) {
+			if (cancelled && registration.ignoreCancelled) continue;
+			if (registration.handler.run(info, record) || record.isCancelled()) cancelled = true;
+		}
+		return cancelled;
 	}
 
 	/**
@@ -129,8 +652,13 @@ public final class BrokerEventService {
 	 * @return true if the event was cancelled, false otherwise
 	 */
 	public final boolean createPurchasePreProcessEvent(BrokerInfo info, PreProcessPurchaseRecord record) {
-		if (purchasePreProcessHandler != null) return purchasePreProcessHandler.run(info, record);
-		return false;
+		VetoEvaluator evaluator = this.vetoEvaluator;
+		boolean cancelled = evaluator != null && evaluator.evaluate(purchaseVetoes.registrations(info), handler -> handler.run(info, record) || record.isCancelled());
+		for (Registration<PurchasePreProcessEventHandler> registration : purchasePreProcessHandlers.registrations(info)) {
+			if (cancelled && registration.ignoreCancelled) continue;
+			if (registration.handler.run(info, record) || record.isCancelled()) cancelled = true;
+		}
+		return cancelled;
 	}
 
 }
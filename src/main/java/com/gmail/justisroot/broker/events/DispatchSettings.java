@@ -0,0 +1,149 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.events;
+
+/**
+ * Settings for the asynchronous dispatch of sale and purchase events through an {@link AsyncDispatcher}.<br>
+ * <br>
+ * Defaults to a ring buffer of 8192 events consumed by a single thread, using the {@link WaitStrategy#BLOCKING} wait strategy and the {@link OverflowPolicy#BLOCK} overflow policy.
+ */
+public final class DispatchSettings {
+
+	private int capacity = 8192;
+	private int consumers = 1;
+	private WaitStrategy waitStrategy = WaitStrategy.BLOCKING;
+	private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+	private int sampleRate = 16;
+
+	/**
+	 * Get the number of events the ring buffer holds.
+	 *
+	 * @return the capacity of the ring buffer
+	 */
+	public int capacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Set the number of events the ring buffer holds.
+	 *
+	 * @param capacity the capacity of the ring buffer, a power of two
+	 * @return this
+	 * @throws IllegalArgumentException if the capacity is not a positive power of two
+	 */
+	public DispatchSettings setCapacity(int capacity) {
+		if (capacity < 1 || Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("Capacity must be a positive power of two");
+		this.capacity = capacity;
+		return this;
+	}
+
+	/**
+	 * Get the number of threads consuming events.
+	 *
+	 * @return the number of consumer threads
+	 */
+	public int consumers() {
+		return this.consumers;
+	}
+
+	/**
+	 * Set the number of threads consuming events.<br>
+	 * With more than one consumer, listeners may receive events concurrently and out of order.
+	 *
+	 * @param consumers the number of consumer threads, at least 1
+	 * @return this
+	 * @throws IllegalArgumentException if the number of consumers is less than 1
+	 */
+	public DispatchSettings setConsumers(int consumers) {
+		if (consumers < 1) throw new IllegalArgumentException("There must be at least one consumer");
+		this.consumers = consumers;
+		return this;
+	}
+
+	/**
+	 * Get the strategy consumers wait for events with.
+	 *
+	 * @return the wait strategy
+	 */
+	public WaitStrategy waitStrategy() {
+		return this.waitStrategy;
+	}
+
+	/**
+	 * Set the strategy consumers wait for events with.
+	 *
+	 * @param waitStrategy the wait strategy
+	 * @return this
+	 * @throws IllegalArgumentException if the wait strategy is null
+	 */
+	public DispatchSettings setWaitStrategy(WaitStrategy waitStrategy) {
+		if (waitStrategy == null) throw new IllegalArgumentException("No null arguments!");
+		this.waitStrategy = waitStrategy;
+		return this;
+	}
+
+	/**
+	 * Get the policy for events published while the ring buffer is full.
+	 *
+	 * @return the overflow policy
+	 */
+	public OverflowPolicy overflowPolicy() {
+		return this.overflowPolicy;
+	}
+
+	/**
+	 * Set the policy for events published while the ring buffer is full.
+	 *
+	 * @param overflowPolicy the overflow policy
+	 * @return this
+	 * @throws IllegalArgumentException if the overflow policy is null
+	 */
+	public DispatchSettings setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		if (overflowPolicy == null) throw new IllegalArgumentException("No null arguments!");
+		this.overflowPolicy = overflowPolicy;
+		return this;
+	}
+
+	/**
+	 * Get how many overflowing events pass per event kept under the {@link OverflowPolicy#SAMPLE} policy.
+	 *
+	 * @return the sample rate
+	 */
+	public int sampleRate() {
+		return this.sampleRate;
+	}
+
+	/**
+	 * Set how many overflowing events pass per event kept under the {@link OverflowPolicy#SAMPLE} policy.
+	 *
+	 * @param sampleRate the sample rate, at least 1
+	 * @return this
+	 * @throws IllegalArgumentException if the sample rate is less than 1
+	 */
+	public DispatchSettings setSampleRate(int sampleRate) {
+		if (sampleRate < 1) throw new IllegalArgumentException("Sample rate must be at least 1");
+		this.sampleRate = sampleRate;
+		return this;
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.events;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Consumer;
+
+/**
+ * Buffers the events of a single batch listener until its batch is due.
+ *
+ * @param <R> The type of record buffered
+ */
+final class EventBatcher<R> {
+
+	final Object handler;
+	final BatchSettings settings;
+	private final Consumer<List<R>> delivery;
+	private List<R> buffer;
+	ScheduledFuture<?> schedule;
+
+	EventBatcher(Object handler, BatchSettings settings, Consumer<List<R>> delivery) {
+		this.handler = handler;
+		this.settings = settings;
+		this.delivery = delivery;
+		this.buffer = new ArrayList<>(settings.maxSize());
+	}
+
+	/**
+	 * Buffer an event, delivering the batch from the calling thread if it is now full.
+	 *
+	 * @param record the record of the event
+	 */
+	final void add(R record) {
+		List<R> full = null;
+		synchronized (this) {
+			buffer.add(record);
+			if (buffer.size() >= settings.maxSize()) full = swap();
+		}
+		if (full != null) delivery.accept(Collections.unmodifiableList(full));
+	}
+
+	/**
+	 * Deliver the buffered events, if any, from the calling thread.
+	 */
+	final void flush() {
+		List<R> batch;
+		synchronized (this) {
+			if (buffer.isEmpty()) return;
+			batch = swap();
+		}
+		delivery.accept(Collections.unmodifiableList(batch));
+	}
+
+	private List<R> swap() {
+		List<R> batch = buffer;
+		buffer = new ArrayList<>(settings.maxSize());
+		return batch;
+	}
+
+}
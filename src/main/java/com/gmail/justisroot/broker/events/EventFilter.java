@@ -0,0 +1,114 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.events;
+
+import com.gmail.justisroot.broker.BrokerInfo;
+
+/**
+ * Scopes a listener to the events of matching Brokers only.<br>
+ * <br>
+ * A Broker matches if it has the filtered ID, the filtered provider, and handles the filtered object type or a subtype of it.
+ * Criteria left unset match every Broker. Whether a Broker matches is computed once per Broker, rather than once per event.
+ */
+public final class EventFilter {
+
+	private String brokerID, provider;
+	private Class<?> type;
+
+	/**
+	 * Get the ID of the Broker that matches this filter.
+	 *
+	 * @return the ID of the matching Broker, null if any ID matches
+	 */
+	public String brokerID() {
+		return this.brokerID;
+	}
+
+	/**
+	 * Match only the Broker with the provided ID.
+	 *
+	 * @param brokerID the ID of the matching Broker, null to match any ID
+	 * @return this
+	 */
+	public EventFilter setBrokerID(String brokerID) {
+		this.brokerID = brokerID;
+		return this;
+	}
+
+	/**
+	 * Get the provider of the Brokers that match this filter.
+	 *
+	 * @return the name of the matching provider, null if any provider matches
+	 */
+	public String provider() {
+		return this.provider;
+	}
+
+	/**
+	 * Match only Brokers from the provided provider.
+	 *
+	 * @param provider the name of the matching provider, null to match any provider
+	 * @return this
+	 */
+	public EventFilter setProvider(String provider) {
+		this.provider = provider;
+		return this;
+	}
+
+	/**
+	 * Get the object type handled by the Brokers that match this filter.
+	 *
+	 * @return the matching object type, null if any type matches
+	 */
+	public Class<?> type() {
+		return this.type;
+	}
+
+	/**
+	 * Match only Brokers handling the provided object type, or a subtype of it.
+	 *
+	 * @param type the matching object type, null to match any type
+	 * @return this
+	 */
+	public EventFilter setType(Class<?> type) {
+		this.type = type;
+		return this;
+	}
+
+	/**
+	 * Check whether the provided Broker matches this filter.
+	 *
+	 * @param info the BrokerInfo of the Broker
+	 * @return true if the Broker matches every criteria of this filter
+	 */
+	public boolean matches(BrokerInfo info) {
+		if (brokerID != null && !brokerID.equals(info.id())) return false;
+		if (provider != null && !provider.equals(info.provider())) return false;
+		return type == null || type.isAssignableFrom(info.type());
+	}
+
+	final EventFilter copy() {
+		return new EventFilter().setBrokerID(brokerID).setProvider(provider).setType(type);
+	}
+
+}
@@ -0,0 +1,63 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.events;
+
+/**
+ * The order in which the listeners of an event are run.<br>
+ * <br>
+ * Listeners run from {@link #LOWEST} to {@link #MONITOR}, so that higher priority listeners have the final say.
+ * Listeners of the same priority run in the order they were added.
+ */
+public enum EventPriority {
+
+	/**
+	 * Run first.
+	 */
+	LOWEST,
+
+	/**
+	 * Run after {@link #LOWEST}.
+	 */
+	LOW,
+
+	/**
+	 * The default priority.
+	 */
+	NORMAL,
+
+	/**
+	 * Run after {@link #NORMAL}.
+	 */
+	HIGH,
+
+	/**
+	 * Run after {@link #HIGH}, last among listeners that may cancel.
+	 */
+	HIGHEST,
+
+	/**
+	 * Run last, intended purely for observing the outcome of an event. Monitoring listeners should not cancel.
+	 */
+	MONITOR
+
+}
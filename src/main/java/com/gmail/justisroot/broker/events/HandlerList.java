@@ -0,0 +1,255 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.events;
+
+import java.util.Arrays;
+
+import com.gmail.justisroot.broker.BrokerInfo;
+
+/**
+ * The listeners of a single event type, ordered by {@link EventPriority}.<br>
+ * <br>
+ * Listeners are held in a copy-on-write array. Adding and removing listeners copies the array under a lock,
+ * while dispatching merely reads the current array, without locking or allocating.<br>
+ * Listeners scoped by an {@link EventFilter} are resolved into a dispatch table per Broker, computed on its first event and discarded whenever the listeners change.
+ * Tables are held by the dense {@link BrokerInfo#index()} of their Broker, replaced once the index is recycled, and forgotten once the Broker is unregistered,
+ * so that they never keep an unregistered Broker's class reachable.
+ *
+ * @param <H> The handler type of the event
+ */
+final class HandlerList<H> {
+
+	private volatile Dispatch<H> dispatch = new Dispatch<>(empty());
+	private Registration<H> assigned;
+
+	@SuppressWarnings("unchecked")
+	private static <H> Registration<H>[] empty() {
+		return (Registration<H>[]) new Registration<?>[0];
+	}
+
+	/**
+	 * Get the current listeners in the order they are to run, regardless of their filters.<br>
+	 * The returned array must not be modified.
+	 *
+	 * @return the current listeners
+	 */
+	final Registration<H>[] registrations() {
+		return this.dispatch.registrations;
+	}
+
+	/**
+	 * Get the current listeners whose filters match the provided Broker, in the order they are to run.<br>
+	 * The returned array must not be modified.
+	 *
+	 * @param info the BrokerInfo of the Broker involved in the event
+	 * @return the current listeners for the Broker
+	 */
+	final Registration<H>[] registrations(BrokerInfo info) {
+		Dispatch<H> dispatch = this.dispatch;
+		return dispatch.filtered ? dispatch.table(info) : dispatch.registrations;
+	}
+
+	/**
+	 * Forget the dispatch table of an unregistered Broker.
+	 *
+	 * @param info the BrokerInfo of the unregistered Broker
+	 */
+	final void forget(BrokerInfo info) {
+		this.dispatch.forget(info);
+	}
+
+	/**
+	 * Add a listener, after every listener of the same or lower priority.
+	 *
+	 * @param priority the priority of the listener
+	 * @param ignoreCancelled true if the listener should be skipped once the event has been cancelled
+	 * @param handler the listener
+	 * @return true if the listener was added, false if it was already present
+	 * @throws IllegalArgumentException if the priority or listener is null
+	 */
+	final boolean add(EventPriority priority, boolean ignoreCancelled, H handler) {
+		return add(priority, ignoreCancelled, null, handler);
+	}
+
+	/**
+	 * Add a listener scoped by a filter, after every listener of the same or lower priority.
+	 *
+	 * @param priority the priority of the listener
+	 * @param ignoreCancelled true if the listener should be skipped once the event has been cancelled
+	 * @param filter the filter for the Brokers whose events the listener receives, null for every Broker
+	 * @param handler the listener
+	 * @return true if the listener was added, false if it was already present
+	 * @throws IllegalArgumentException if the priority or listener is null
+	 */
+	final synchronized boolean add(EventPriority priority, boolean ignoreCancelled, EventFilter filter, H handler) {
+		if (priority == null || handler == null) throw new IllegalArgumentException("No null arguments!");
+		return add(new Registration<>(priority, ignoreCancelled, filter == null ? null : filter.copy(), handler));
+	}
+
+	private boolean add(Registration<H> registration) {
+		Registration<H>[] current = this.dispatch.registrations;
+		for (Registration<H> existing : current) if (existing.handler == registration.handler) return false;
+		int index = current.length;
+		while (index > 0 && current[index - 1].priority.compareTo(registration.priority) > 0) index--;
+		@SuppressWarnings("unchecked")
+		Registration<H>[] updated = (Registration<H>[]) new Registration<?>[current.length + 1];
+		System.arraycopy(current, 0, updated, 0, index);
+		updated[index] = registration;
+		System.arraycopy(current, index, updated, index + 1, current.length - index);
+		this.dispatch = new Dispatch<>(updated);
+		return true;
+	}
+
+	/**
+	 * Remove a listener.
+	 *
+	 * @param handler the listener to remove
+	 * @return true if the listener was removed, false if it wasn't present
+	 */
+	final synchronized boolean remove(H handler) {
+		Registration<H>[] current = this.dispatch.registrations;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i].handler != handler) continue;
+			@SuppressWarnings("unchecked")
+			Registration<H>[] updated = (Registration<H>[]) new Registration<?>[current.length - 1];
+			System.arraycopy(current, 0, updated, 0, i);
+			System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+			this.dispatch = new Dispatch<>(updated);
+			if (assigned != null && assigned.handler == handler) assigned = null;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Replace the listener assigned by the previous call, if any, with the provided one at {@link EventPriority#NORMAL}.
+	 *
+	 * @param handler the listener to assign, null to only remove the previous one
+	 */
+	final synchronized void assign(H handler) {
+		if (assigned != null) remove(assigned.handler);
+		if (handler == null) return;
+		Registration<H> registration = new Registration<>(EventPriority.NORMAL, false, null, handler);
+		if (add(registration)) assigned = registration;
+	}
+
+	/**
+	 * A listener along with its registration settings.
+	 *
+	 * @param <H> The handler type of the event
+	 */
+	static final class Registration<H> {
+
+		final EventPriority priority;
+		final boolean ignoreCancelled;
+		final EventFilter filter;
+		final H handler;
+
+		private Registration(EventPriority priority, boolean ignoreCancelled, EventFilter filter, H handler) {
+			this.priority = priority;
+			this.ignoreCancelled = ignoreCancelled;
+			this.filter = filter;
+			this.handler = handler;
+		}
+
+	}
+
+	/**
+	 * A snapshot of the listeners, along with the dispatch tables resolved from it.<br>
+	 * Replaced as a whole whenever the listeners change, so that a table can never outlive the listeners it was resolved from.
+	 *
+	 * @param <H> The handler type of the event
+	 */
+	private static final class Dispatch<H> {
+
+		private final Registration<H>[] registrations;
+		private final boolean filtered;
+		private volatile Table<H>[] tables = Table.empty();
+
+		private Dispatch(Registration<H>[] registrations) {
+			this.registrations = registrations;
+			boolean filtered = false;
+			for (Registration<H> registration : registrations) filtered |= registration.filter != null;
+			this.filtered = filtered;
+		}
+
+		private Registration<H>[] table(BrokerInfo info) {
+			int index = info.index();
+			if (index < 0) return resolve(info);
+			Table<H>[] tables = this.tables;
+			Table<H> table = index < tables.length ? tables[index] : null;
+			if (table != null && (table.info == info || table.info.equals(info))) return table.registrations;
+			Registration<H>[] resolved = resolve(info);
+			store(index, new Table<>(info, resolved));
+			return resolved;
+		}
+
+		private synchronized void store(int index, Table<H> table) {
+			Table<H>[] tables = Arrays.copyOf(this.tables, Math.max(this.tables.length, index + 1));
+			tables[index] = table;
+			this.tables = tables;
+		}
+
+		private synchronized void forget(BrokerInfo info) {
+			int index = info.index();
+			Table<H>[] tables = this.tables;
+			if (index < 0 || index >= tables.length || tables[index] == null || !tables[index].info.equals(info)) return;
+			tables = tables.clone();
+			tables[index] = null;
+			this.tables = tables;
+		}
+
+		private Registration<H>[] resolve(BrokerInfo info) {
+			Registration<H>[] table = Arrays.copyOf(registrations, registrations.length);
+			int size = 0;
+			for (Registration<H> registration : registrations) {
+				if (registration.filter == null || registration.filter.matches(info)) table[size++] = registration;
+			}
+			return size == table.length ? registrations : Arrays.copyOf(table, size);
+		}
+
+	}
+
+	/**
+	 * The dispatch table of a single Broker, along with the BrokerInfo it was resolved for.
+	 *
+	 * @param <H> The handler type of the event
+	 */
+	private static final class Table<H> {
+
+		private final BrokerInfo info;
+		private final Registration<H>[] registrations;
+
+		private Table(BrokerInfo info, Registration<H>[] registrations) {
+			this.info = info;
+			this.registrations = registrations;
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <H> Table<H>[] empty() {
+			return (Table<H>[]) new Table<?>[0];
+		}
+
+	}
+
+}
@@ -0,0 +1,48 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.events;
+
+/**
+ * What an {@link AsyncDispatcher} does with an event published while its ring buffer is full.
+ */
+public enum OverflowPolicy {
+
+	/**
+	 * The publishing thread waits until there is room for the event.<br>
+	 * No events are lost, but slow listeners will eventually slow down transactions.
+	 */
+	BLOCK,
+
+	/**
+	 * The event is dropped and counted.<br>
+	 * Transactions are never slowed down, but listeners may miss events.
+	 */
+	DROP,
+
+	/**
+	 * Every n-th overflowing event waits for room as with {@link #BLOCK}, the rest are dropped as with {@link #DROP}.<br>
+	 * Listeners keep receiving a sample of events under load, while publishers only occasionally wait.
+	 */
+	SAMPLE
+
+}
@@ -25,7 +25,10 @@ package com.gmail.justisroot.broker.events;
 import com.gmail.justisroot.broker.BrokerInfo;
 import com.gmail.justisroot.broker.record.PurchaseRecord;
 
-interface PurchaseEventHandler {
+/**
+ * Handles the completion of a purchase.
+ */
+public interface PurchaseEventHandler {
 
 	/**
 	 * Run the event
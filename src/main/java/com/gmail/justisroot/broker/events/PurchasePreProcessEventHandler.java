@@ -25,13 +25,16 @@ package com.gmail.justisroot.broker.events;
 import com.gmail.justisroot.broker.BrokerInfo;
 import com.gmail.justisroot.broker.record.PreProcessPurchaseRecord;
 
-interface PurchasePreProcessEventHandler {
+/**
+ * Handles a purchase prior to its record being built, with the ability to cancel it.
+ */
+public interface PurchasePreProcessEventHandler {
 
 	/**
 	 * Run the event
 	 * @param info the BrokerInfo associated with this event
 	 * @param preProcessPurchaseRecord the PreProcessPurchaseRecord associated with this event
-	 * @return true if the event was cancelled, otherwise false
+	 * @return true if the event was cancelled, otherwise false. Cancel through {@link PreProcessPurchaseRecord#cancel(String)} instead to provide a reason
 	 */
 	boolean run(BrokerInfo info, PreProcessPurchaseRecord preProcessPurchaseRecord);
 
@@ -25,7 +25,10 @@ package com.gmail.justisroot.broker.events;
 import com.gmail.justisroot.broker.BrokerInfo;
 import com.gmail.justisroot.broker.record.SaleRecord;
 
-interface SaleEventHandler {
+/**
+ * Handles the completion of a sale.
+ */
+public interface SaleEventHandler {
 
 	/**
 	 * Run the event
@@ -25,13 +25,16 @@ package com.gmail.justisroot.broker.events;
 import com.gmail.justisroot.broker.BrokerInfo;
 import com.gmail.justisroot.broker.record.PreProcessSaleRecord;
 
-interface SalePreProcessEventHandler {
+/**
+ * Handles a sale prior to its record being built, with the ability to cancel it.
+ */
+public interface SalePreProcessEventHandler {
 
 	/**
 	 * Run the event
 	 * @param info the BrokerInfo associated with this event
 	 * @param preProcessSaleRecord the PreProcessSaleRecord associated with this event
-	 * @return true if the event was cancelled, otherwise false
+	 * @return true if the event was cancelled, otherwise false. Cancel through {@link PreProcessSaleRecord#cancel(String)} instead to provide a reason
 	 */
 	boolean run(BrokerInfo info, PreProcessSaleRecord preProcessSaleRecord);
 
@@ -0,0 +1,124 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.events;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Predicate;
+
+import com.gmail.justisroot.broker.events.HandlerList.Registration;
+
+/**
+ * Evaluates side-effect-free pre-process listeners concurrently, until the first of them cancels the event.<br>
+ * <br>
+ * The calling thread evaluates listeners alongside the pool rather than merely waiting on it, so an evaluation never stalls behind a busy pool.
+ * Once a listener cancels the event, listeners that have yet to start are skipped, and the caller returns once those still running have finished,
+ * so that no listener still reads the event once it is passed on.
+ */
+final class VetoEvaluator {
+
+	private final int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+	private final ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+		Thread thread = new Thread(runnable, "BrokerAPI Veto Evaluator");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Evaluate the provided listeners until one of them cancels the event.
+	 *
+	 * @param <H> The handler type of the event
+	 * @param vetoes the listeners to evaluate
+	 * @param veto runs a listener, returning true if it cancelled the event
+	 * @return true if a listener cancelled the event
+	 */
+	final <H> boolean evaluate(Registration<H>[] vetoes, Predicate<H> veto) {
+		if (vetoes.length == 0) return false;
+		if (vetoes.length == 1) return veto.test(vetoes[0].handler);
+		Evaluation<H> evaluation = new Evaluation<>(vetoes, veto);
+		try {
+			for (int i = Math.min(vetoes.length, threads) - 1; i > 0; i--) pool.execute(evaluation);
+		} catch (RejectedExecutionException e) {
+			// The caller evaluates whatever the pool could not take
+		}
+		evaluation.run();
+		return evaluation.await();
+	}
+
+	private static final class Evaluation<H> implements Runnable {
+
+		private final Registration<H>[] vetoes;
+		private final Predicate<H> veto;
+		private int next, running, remaining;
+		private boolean vetoed;
+		private RuntimeException failure;
+
+		private Evaluation(Registration<H>[] vetoes, Predicate<H> veto) {
+			this.vetoes = vetoes;
+			this.veto = veto;
+			this.remaining = vetoes.length;
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				int index;
+				synchronized (this) {
+					if (vetoed || next == vetoes.length) return;
+					index = next++;
+					running++;
+				}
+				boolean cancelled = false;
+				RuntimeException failure = null;
+				try {
+					cancelled = veto.test(vetoes[index].handler);
+				} catch (RuntimeException e) {
+					failure = e;
+				}
+				synchronized (this) {
+					if (cancelled) vetoed = true;
+					if (failure != null && this.failure == null) this.failure = failure;
+					remaining--;
+					if (--running == 0 && (remaining == 0 || vetoed)) notifyAll();
+				}
+			}
+		}
+
+		private synchronized boolean await() {
+			boolean interrupted = false;
+			while (running > 0 || (!vetoed && remaining > 0)) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) Thread.currentThread().interrupt();
+			if (!vetoed && failure != null) throw failure;
+			return vetoed;
+		}
+
+	}
+
+}
@@ -0,0 +1,52 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.events;
+
+/**
+ * How the consumer threads of an {@link AsyncDispatcher} wait for events to arrive.<br>
+ * <br>
+ * Strategies range from {@link #BLOCKING}, which costs no CPU while idle but the most latency, to {@link #BUSY_SPIN}, which occupies a core per consumer for the least latency.
+ */
+public enum WaitStrategy {
+
+	/**
+	 * Park on a lock until a publisher signals an event.
+	 */
+	BLOCKING,
+
+	/**
+	 * Spin briefly, then yield, then park for short intervals.
+	 */
+	SLEEPING,
+
+	/**
+	 * Spin briefly, then yield the thread between checks.
+	 */
+	YIELDING,
+
+	/**
+	 * Spin continuously.
+	 */
+	BUSY_SPIN
+
+}
@@ -0,0 +1,48 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.journal;
+
+/**
+ * The guarantee a {@link TransactionJournal} makes about an entry once {@link TransactionJournal#append(com.gmail.justisroot.broker.BrokerInfo, com.gmail.justisroot.broker.record.TransactionRecord)} returns.
+ */
+public enum Durability {
+
+	/**
+	 * Entries are written to the mapped segment and left for the operating system to flush.<br>
+	 * Survives a crash of the JVM, but not of the machine.
+	 */
+	NONE,
+
+	/**
+	 * Entries are forced to disk by a background thread once per flush interval.<br>
+	 * A machine failure may lose up to one interval worth of entries.
+	 */
+	PERIODIC,
+
+	/**
+	 * Appending threads wait until their entry has been forced to disk.<br>
+	 * Concurrent appends are committed as a group, so that a single force covers every entry written while the previous force was running.
+	 */
+	SYNC
+
+}
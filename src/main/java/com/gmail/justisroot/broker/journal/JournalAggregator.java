@@ -0,0 +1,70 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.journal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.gmail.justisroot.broker.codec.TransactionEntry;
+
+/**
+ * Accumulates journaled transactions into some aggregate, such as revenue per Broker, during a {@link JournalReplay}.<br>
+ * <br>
+ * Segments are replayed in parallel, so {@link #accept(TransactionEntry)} is called concurrently and in no particular order.
+ * Implementations must be thread safe and their aggregate must not depend on the order of entries.
+ */
+public interface JournalAggregator {
+
+	/**
+	 * Get the name this aggregator's state is stored under in replay checkpoints.<br>
+	 * Must be unique among the aggregators of a replay and stable between restarts.
+	 *
+	 * @return the name of this aggregator
+	 */
+	String name();
+
+	/**
+	 * Accumulate a journaled transaction.
+	 *
+	 * @param entry the journaled transaction
+	 */
+	void accept(TransactionEntry entry);
+
+	/**
+	 * Write the current aggregate to a checkpoint.
+	 *
+	 * @param out the checkpoint to write to
+	 * @throws IOException if the aggregate could not be written
+	 */
+	void save(DataOutput out) throws IOException;
+
+	/**
+	 * Restore an aggregate previously written by {@link #save(DataOutput)}, replacing the current one.
+	 *
+	 * @param in the checkpoint to read from
+	 * @throws IOException if the aggregate could not be read
+	 */
+	void load(DataInput in) throws IOException;
+
+}
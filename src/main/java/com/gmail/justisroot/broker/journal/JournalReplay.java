@@ -0,0 +1,188 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.gmail.justisroot.broker.codec.TransactionCodec;
+
+/**
+ * Rebuilds aggregates from a {@link TransactionJournal}, such as after a restart.<br>
+ * <br>
+ * Segments are scanned in parallel through read-only memory mappings and every entry is fed to each registered {@link JournalAggregator}.<br>
+ * When a checkpoint file is provided, the aggregates and the journal position they cover are saved to it after each replay.
+ * The next replay restores the aggregates from it and only scans the entries journaled since.
+ */
+public final class JournalReplay {
+
+	private static final int CHECKPOINT_MAGIC = 0x42524b43;
+
+	private final TransactionCodec codec;
+	private final Map<String, JournalAggregator> aggregators = new LinkedHashMap<>();
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Create a replay decoding entries with the provided codec.
+	 *
+	 * @param codec the codec the journal was written with
+	 * @throws IllegalArgumentException if the codec is null
+	 */
+	public JournalReplay(TransactionCodec codec) {
+		if (codec == null) throw new IllegalArgumentException("No null arguments!");
+		this.codec = codec;
+	}
+
+	/**
+	 * Register an aggregator to feed replayed entries to.
+	 *
+	 * @param aggregator the aggregator to register
+	 * @return this
+	 * @throws IllegalArgumentException if the aggregator is null or another with the same name is registered
+	 */
+	public JournalReplay register(JournalAggregator aggregator) {
+		if (aggregator == null) throw new IllegalArgumentException("No null arguments!");
+		if (aggregators.putIfAbsent(aggregator.name(), aggregator) != null) throw new IllegalArgumentException("An aggregator named " + aggregator.name() + " is already registered");
+		return this;
+	}
+
+	/**
+	 * Set the maximum number of segments scanned at once.
+	 *
+	 * @param parallelism the maximum number of segments scanned at once, at least 1
+	 * @return this
+	 * @throws IllegalArgumentException if the parallelism is less than 1
+	 */
+	public JournalReplay setParallelism(int parallelism) {
+		if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * Replay the journal in the provided folder into the registered aggregators.<br>
+	 * <br>
+	 * If the checkpoint file exists and holds a state for every registered aggregator, those states are loaded and only entries past the checkpoint are replayed.
+	 * Otherwise the aggregators are expected to be empty and the entire journal is replayed.
+	 *
+	 * @param folder the folder holding the journal's segments
+	 * @param checkpoint the checkpoint file to resume from and save to, null to replay everything without saving
+	 * @return the number of entries replayed
+	 * @throws IOException if a segment or the checkpoint could not be read, or the checkpoint could not be written
+	 */
+	public long replay(File folder, File checkpoint) throws IOException {
+		long segment = -1;
+		int offset = 0;
+		if (checkpoint != null && checkpoint.isFile()) {
+			try (DataInputStream in = new DataInputStream(Files.newInputStream(checkpoint.toPath()))) {
+				if (in.readInt() != CHECKPOINT_MAGIC) throw new IOException(checkpoint.getName() + " is not a replay checkpoint");
+				long checkpointSegment = in.readLong();
+				int checkpointOffset = in.readInt();
+				Map<String, byte[]> states = new HashMap<>();
+				for (int i = in.readInt(); i > 0; i--) {
+					String name = in.readUTF();
+					byte[] state = new byte[in.readInt()];
+					in.readFully(state);
+					states.put(name, state);
+				}
+				if (states.keySet().containsAll(aggregators.keySet())) {
+					for (JournalAggregator aggregator : aggregators.values()) {
+						aggregator.load(new DataInputStream(new ByteArrayInputStream(states.get(aggregator.name()))));
+					}
+					segment = checkpointSegment;
+					offset = checkpointOffset;
+				}
+			}
+		}
+		List<File> pending = new ArrayList<>();
+		for (File file : TransactionJournal.segments(folder)) if (TransactionJournal.index(file) >= segment) pending.add(file);
+		AtomicLong replayed = new AtomicLong();
+		long last = segment;
+		int end = offset;
+		if (!pending.isEmpty()) {
+			ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, pending.size()), runnable -> {
+				Thread thread = new Thread(runnable, "BrokerAPI Journal Replay");
+				thread.setDaemon(true);
+				return thread;
+			});
+			try {
+				List<Future<Integer>> scans = new ArrayList<>();
+				for (File file : pending) {
+					int from = TransactionJournal.index(file) == segment ? offset : 0;
+					boolean newest = file == pending.get(pending.size() - 1);
+					scans.add(executor.submit(() -> JournalSegment.read(file, codec, from, newest, entry -> {
+						for (JournalAggregator aggregator : aggregators.values()) aggregator.accept(entry);
+						replayed.incrementAndGet();
+					})));
+				}
+				for (Future<Integer> scan : scans) end = scan.get();
+				last = TransactionJournal.index(pending.get(pending.size() - 1));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Replay interrupted", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+				throw new IOException("Replay failed", e.getCause());
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+		if (checkpoint != null) save(checkpoint, last, end);
+		return replayed.get();
+	}
+
+	private void save(File checkpoint, long segment, int offset) throws IOException {
+		File temporary = new File(checkpoint.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temporary.toPath()))) {
+			out.writeInt(CHECKPOINT_MAGIC);
+			out.writeLong(segment);
+			out.writeInt(offset);
+			out.writeInt(aggregators.size());
+			for (JournalAggregator aggregator : aggregators.values()) {
+				ByteArrayOutputStream state = new ByteArrayOutputStream();
+				aggregator.save(new DataOutputStream(state));
+				out.writeUTF(aggregator.name());
+				out.writeInt(state.size());
+				state.writeTo(out);
+			}
+		}
+		Files.move(temporary.toPath(), checkpoint.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+}
@@ -0,0 +1,234 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import com.gmail.justisroot.broker.codec.CodecDictionary;
+import com.gmail.justisroot.broker.codec.TransactionCodec;
+import com.gmail.justisroot.broker.codec.TransactionEntry;
+
+/**
+ * A single memory-mapped journal file.<br>
+ * <br>
+ * Segments begin with an 8 byte header, the magic number followed by the format version.
+ * The newest segment may be left with a blank header by a crash right after its creation, in which case it is treated as empty.<br>
+ * Each entry is framed by its payload length and the CRC32 of its payload. A length of 0 marks the end of the written portion.<br>
+ * Payloads are encoded by a {@link com.gmail.justisroot.broker.codec.TransactionCodec}, with a {@link CodecDictionary} starting empty at each segment, so that every segment may be decoded on its own.
+ */
+final class JournalSegment {
+
+	static final String SUFFIX = ".journal";
+	static final int MAGIC = 0x42524b4a;
+	static final int VERSION = 2;
+	static final int HEADER = 8;
+	static final int FRAME_HEADER = 8;
+
+	private final long index;
+	private final File file;
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final CRC32 crc = new CRC32();
+	private final CodecDictionary dictionary = new CodecDictionary();
+
+	private JournalSegment(long index, File file, int size) throws IOException {
+		this.index = index;
+		this.file = file;
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.buffer = channel.map(MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+	}
+
+	/**
+	 * Create a new empty segment in the provided folder.
+	 *
+	 * @param folder the journal folder
+	 * @param index the index of the new segment
+	 * @param size the size in bytes of the new segment
+	 * @return the created segment, positioned after its header
+	 * @throws IOException if the segment file could not be created or mapped
+	 */
+	static final JournalSegment create(File folder, long index, int size) throws IOException {
+		JournalSegment segment = new JournalSegment(index, new File(folder, name(index)), size);
+		segment.buffer.putInt(0, MAGIC).putInt(4, VERSION);
+		segment.buffer.position(HEADER);
+		return segment;
+	}
+
+	/**
+	 * Open an existing segment for further appending.<br>
+	 * Positions the segment after its last intact entry and clears anything past it, such as an entry torn by a crash.
+	 * A blank header, left by a crash before the header of a newly created segment reached the disk, is written anew.
+	 *
+	 * @param file the segment file
+	 * @param index the index of the segment
+	 * @param size the minimum size in bytes of the segment
+	 * @param codec the codec to rebuild the segment's dictionary with
+	 * @return the opened segment
+	 * @throws IOException if the segment could not be mapped or is not a journal segment of the current version
+	 */
+	static final JournalSegment recover(File file, long index, int size, TransactionCodec codec) throws IOException {
+		JournalSegment segment = new JournalSegment(index, file, size);
+		MappedByteBuffer buffer = segment.buffer;
+		if (blank(buffer)) buffer.putInt(0, MAGIC).putInt(4, VERSION);
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			segment.close();
+			throw new IOException(file.getName() + " is not a version " + VERSION + " journal segment");
+		}
+		int position = end(buffer, segment.crc);
+		ByteBuffer entries = buffer.duplicate();
+		entries.limit(position).position(HEADER);
+		while (entries.hasRemaining()) {
+			int length = entries.getInt();
+			entries.getInt();
+			ByteBuffer payload = entries.slice();
+			payload.limit(length);
+			codec.read(payload, segment.dictionary);
+			entries.position(entries.position() + length);
+		}
+		for (int i = position; i < buffer.limit(); i++) if (buffer.get(i) != 0) buffer.put(i, (byte) 0);
+		buffer.position(position);
+		return segment;
+	}
+
+	/**
+	 * Decode the intact entries of a segment file through a read-only mapping.
+	 *
+	 * @param file the segment file
+	 * @param codec the codec to decode entries with
+	 * @param from the position of the first entry to provide to the consumer, earlier entries are only decoded for their dictionary definitions
+	 * @param newest true if this is the newest segment of the journal, whose header may be blank
+	 * @param consumer the consumer of the decoded entries
+	 * @return the position after the last intact entry of the segment
+	 * @throws IOException if the segment could not be mapped or is not a journal segment of the current version
+	 */
+	static final int read(File file, TransactionCodec codec, int from, boolean newest, Consumer<TransactionEntry> consumer) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (newest && blank(buffer)) return HEADER;
+		if (buffer.limit() < HEADER || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) throw new IOException(file.getName() + " is not a version " + VERSION + " journal segment");
+		CodecDictionary dictionary = new CodecDictionary();
+		CRC32 crc = new CRC32();
+		int position = HEADER;
+		while (position + FRAME_HEADER <= buffer.limit()) {
+			int length = buffer.getInt(position);
+			if (length <= 0 || length > buffer.limit() - position - FRAME_HEADER) break;
+			if (checksum(buffer, position + FRAME_HEADER, length, crc) != buffer.getInt(position + 4)) break;
+			ByteBuffer payload = buffer.duplicate();
+			payload.limit(position + FRAME_HEADER + length).position(position + FRAME_HEADER);
+			TransactionEntry entry = codec.read(payload, dictionary);
+			if (position >= from) consumer.accept(entry);
+			position += FRAME_HEADER + length;
+		}
+		return position;
+	}
+
+	/**
+	 * Find the position after the last intact entry of a segment.
+	 *
+	 * @param buffer the segment contents
+	 * @param crc a CRC32 instance to validate entries with
+	 * @return the position after the last intact entry
+	 */
+	static final int end(ByteBuffer buffer, CRC32 crc) {
+		int position = HEADER;
+		while (position + FRAME_HEADER <= buffer.limit()) {
+			int length = buffer.getInt(position);
+			if (length <= 0 || length > buffer.limit() - position - FRAME_HEADER) break;
+			if (checksum(buffer, position + FRAME_HEADER, length, crc) != buffer.getInt(position + 4)) break;
+			position += FRAME_HEADER + length;
+		}
+		return position;
+	}
+
+	/**
+	 * Get whether a segment's header was never written, such as when a crash occurs right after the segment is created.
+	 *
+	 * @param buffer the segment contents
+	 * @return true if the segment is too short for a header, or its header is entirely zero
+	 */
+	static final boolean blank(ByteBuffer buffer) {
+		return buffer.limit() < HEADER || (buffer.getInt(0) == 0 && buffer.getInt(4) == 0);
+	}
+
+	static final int checksum(ByteBuffer buffer, int offset, int length, CRC32 crc) {
+		ByteBuffer slice = buffer.duplicate();
+		slice.limit(offset + length).position(offset);
+		crc.reset();
+		crc.update(slice);
+		return (int) crc.getValue();
+	}
+
+	static final String name(long index) {
+		return String.format("%020d%s", index, SUFFIX);
+	}
+
+	/**
+	 * Append a framed entry to this segment.
+	 *
+	 * @param payload the entry to write, from its position to its limit
+	 * @return true if the entry was written, false if this segment doesn't have room for it
+	 */
+	final boolean append(ByteBuffer payload) {
+		int length = payload.remaining();
+		int position = buffer.position();
+		if (position + FRAME_HEADER + length > buffer.limit()) return false;
+		crc.reset();
+		crc.update(payload.duplicate());
+		buffer.position(position + FRAME_HEADER);
+		buffer.put(payload);
+		buffer.putInt(position + 4, (int) crc.getValue());
+		buffer.putInt(position, length);
+		return true;
+	}
+
+	final CodecDictionary dictionary() {
+		return this.dictionary;
+	}
+
+	final long index() {
+		return this.index;
+	}
+
+	final File file() {
+		return this.file;
+	}
+
+	final void force() {
+		buffer.force();
+	}
+
+	final void close() throws IOException {
+		channel.close();
+	}
+
+}
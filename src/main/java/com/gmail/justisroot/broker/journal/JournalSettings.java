@@ -0,0 +1,129 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.journal;
+
+import com.gmail.justisroot.broker.codec.TransactionCodec;
+
+/**
+ * Settings for opening a {@link TransactionJournal}.<br>
+ * <br>
+ * Defaults to 16 MiB segments with {@link Durability#PERIODIC} durability and a one second flush interval.
+ */
+public final class JournalSettings {
+
+	private int segmentSize = 16 * 1024 * 1024;
+	private Durability durability = Durability.PERIODIC;
+	private long flushInterval = 1000;
+	private TransactionCodec codec = new TransactionCodec();
+
+	/**
+	 * Get the size in bytes of each journal segment file.
+	 *
+	 * @return the size in bytes of each segment
+	 */
+	public int segmentSize() {
+		return this.segmentSize;
+	}
+
+	/**
+	 * Set the size in bytes of each journal segment file.<br>
+	 * A new segment is rolled once the current one can't fit the next entry.
+	 *
+	 * @param segmentSize the size in bytes of each segment, at least 4 KiB
+	 * @return this
+	 * @throws IllegalArgumentException if the size is less than 4 KiB
+	 */
+	public JournalSettings setSegmentSize(int segmentSize) {
+		if (segmentSize < 4096) throw new IllegalArgumentException("Segments must be at least 4096 bytes");
+		this.segmentSize = segmentSize;
+		return this;
+	}
+
+	/**
+	 * Get the durability policy of the journal.
+	 *
+	 * @return the durability policy
+	 */
+	public Durability durability() {
+		return this.durability;
+	}
+
+	/**
+	 * Set the durability policy of the journal.
+	 *
+	 * @param durability the durability policy
+	 * @return this
+	 * @throws IllegalArgumentException if the durability is null
+	 */
+	public JournalSettings setDurability(Durability durability) {
+		if (durability == null) throw new IllegalArgumentException("No null arguments!");
+		this.durability = durability;
+		return this;
+	}
+
+	/**
+	 * Get the interval in milliseconds between background flushes for {@link Durability#PERIODIC} journals.
+	 *
+	 * @return the flush interval in milliseconds
+	 */
+	public long flushInterval() {
+		return this.flushInterval;
+	}
+
+	/**
+	 * Set the interval in milliseconds between background flushes for {@link Durability#PERIODIC} journals.
+	 *
+	 * @param flushInterval the flush interval in milliseconds, greater than 0
+	 * @return this
+	 * @throws IllegalArgumentException if the interval is not positive
+	 */
+	public JournalSettings setFlushInterval(long flushInterval) {
+		if (flushInterval < 1) throw new IllegalArgumentException("Flush interval must be positive");
+		this.flushInterval = flushInterval;
+		return this;
+	}
+
+	/**
+	 * Get the codec that journal entries are encoded with.
+	 *
+	 * @return the codec of the journal
+	 */
+	public TransactionCodec codec() {
+		return this.codec;
+	}
+
+	/**
+	 * Set the codec that journal entries are encoded with.<br>
+	 * Register an {@link com.gmail.justisroot.broker.codec.ObjectCodec} with it for each transacted type that should be journaled along with its Object.
+	 *
+	 * @param codec the codec of the journal
+	 * @return this
+	 * @throws IllegalArgumentException if the codec is null
+	 */
+	public JournalSettings setCodec(TransactionCodec codec) {
+		if (codec == null) throw new IllegalArgumentException("No null arguments!");
+		this.codec = codec;
+		return this;
+	}
+
+}
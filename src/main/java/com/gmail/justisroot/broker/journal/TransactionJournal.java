@@ -0,0 +1,248 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.journal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.gmail.justisroot.broker.BrokerInfo;
+import com.gmail.justisroot.broker.record.TransactionRecord;
+
+/**
+ * An append-only journal of completed transactions.<br>
+ * <br>
+ * Entries are encoded by the {@link JournalSettings#codec()} to a folder of fixed size, memory-mapped segment files. A new segment is rolled whenever the current one is full.<br>
+ * How soon entries reach the disk is determined by the journal's {@link Durability}. Forces are performed by a single background thread, batching every entry appended since the previous force.
+ */
+public final class TransactionJournal implements Closeable {
+
+	private final File folder;
+	private final JournalSettings settings;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Object flushMonitor = new Object();
+	private final Thread flusher;
+
+	private JournalSegment current;
+	private ByteBuffer scratch = ByteBuffer.allocate(512);
+	private volatile long appended, forced;
+	private volatile boolean open = true;
+
+	private TransactionJournal(File folder, JournalSettings settings) throws IOException {
+		this.folder = folder;
+		this.settings = settings;
+		File[] segments = segments(folder);
+		if (segments.length == 0) current = JournalSegment.create(folder, 0, settings.segmentSize());
+		else {
+			File last = segments[segments.length - 1];
+			current = JournalSegment.recover(last, index(last), settings.segmentSize(), settings.codec());
+		}
+		if (settings.durability() == Durability.NONE) flusher = null;
+		else {
+			flusher = new Thread(this::flushLoop, "BrokerAPI Journal Flusher");
+			flusher.setDaemon(true);
+			flusher.start();
+		}
+	}
+
+	/**
+	 * Open the journal in the provided folder, creating it if necessary.<br>
+	 * Appending resumes after the last intact entry of the newest segment.
+	 *
+	 * @param folder the folder holding the journal's segments
+	 * @param settings the settings for the journal
+	 * @return the opened journal
+	 * @throws IOException if the folder or its newest segment could not be opened
+	 * @throws IllegalArgumentException if either provided arguments are null
+	 */
+	public static final TransactionJournal open(File folder, JournalSettings settings) throws IOException {
+		if (folder == null || settings == null) throw new IllegalArgumentException("No null arguments!");
+		if (!folder.isDirectory() && !folder.mkdirs()) throw new IOException("Unable to create journal folder " + folder);
+		return new TransactionJournal(folder, settings);
+	}
+
+	/**
+	 * Get the segment files of the journal in the provided folder, oldest first.
+	 *
+	 * @param folder the folder holding the journal's segments
+	 * @return the segment files of the journal, oldest first
+	 */
+	static final File[] segments(File folder) {
+		File[] segments = folder.listFiles((dir, name) -> name.endsWith(JournalSegment.SUFFIX));
+		if (segments == null) return new File[0];
+		Arrays.sort(segments);
+		return segments;
+	}
+
+	static final long index(File segment) {
+		String name = segment.getName();
+		return Long.parseLong(name.substring(0, name.length() - JournalSegment.SUFFIX.length()));
+	}
+
+	/**
+	 * Get the folder holding this journal's segments.
+	 *
+	 * @return the folder holding this journal's segments
+	 */
+	public final File folder() {
+		return this.folder;
+	}
+
+	/**
+	 * Append a completed transaction to the journal.<br>
+	 * <br>
+	 * Returns once the entry is written to the current segment, or for {@link Durability#SYNC} journals, once it has been forced to disk.
+	 *
+	 * @param info the BrokerInfo of the Broker that facilitated the transaction
+	 * @param record the completed transaction
+	 * @throws IllegalStateException if the journal has been closed
+	 * @throws IllegalArgumentException if the encoded transaction is larger than a segment
+	 * @throws UncheckedIOException if a new segment could not be created
+	 */
+	public final void append(BrokerInfo info, TransactionRecord<?> record) {
+		long timestamp = System.currentTimeMillis();
+		long sequence;
+		lock.lock();
+		try {
+			if (!open) throw new IllegalStateException("Journal is closed");
+			int mark = current.dictionary().size();
+			ByteBuffer payload = encode(info, record, timestamp);
+			if (!current.append(payload)) {
+				current.dictionary().truncate(mark);
+				roll();
+				mark = current.dictionary().size();
+				payload = encode(info, record, timestamp);
+				if (!current.append(payload)) {
+					current.dictionary().truncate(mark);
+					throw new IllegalArgumentException("Entry of " + payload.remaining() + " bytes exceeds the segment size");
+				}
+			}
+			sequence = ++appended;
+		} finally {
+			lock.unlock();
+		}
+		if (settings.durability() == Durability.SYNC) awaitForce(sequence);
+	}
+
+	private void roll() {
+		JournalSegment full = current;
+		try {
+			current = JournalSegment.create(folder, full.index() + 1, settings.segmentSize());
+			full.force();
+			full.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void awaitForce(long sequence) {
+		synchronized (flushMonitor) {
+			flushMonitor.notifyAll();
+			while (forced < sequence && open) {
+				try {
+					flushMonitor.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	private void flushLoop() {
+		boolean periodic = settings.durability() == Durability.PERIODIC;
+		while (open) {
+			synchronized (flushMonitor) {
+				try {
+					if (periodic) flushMonitor.wait(settings.flushInterval());
+					else while (open && appended == forced) flushMonitor.wait();
+				} catch (InterruptedException e) {
+					break;
+				}
+			}
+			flush();
+		}
+	}
+
+	/**
+	 * Force every entry appended so far to disk.
+	 */
+	public final void flush() {
+		long target;
+		JournalSegment segment;
+		lock.lock();
+		try {
+			target = appended;
+			segment = current;
+		} finally {
+			lock.unlock();
+		}
+		if (target == forced) return;
+		segment.force();
+		synchronized (flushMonitor) {
+			if (target > forced) forced = target;
+			flushMonitor.notifyAll();
+		}
+	}
+
+	/**
+	 * Flush and close the journal.<br>
+	 * Entries may no longer be appended once closed.
+	 *
+	 * @throws IOException if the current segment could not be closed
+	 */
+	@Override
+	public final void close() throws IOException {
+		lock.lock();
+		try {
+			if (!open) return;
+			open = false;
+			current.force();
+			forced = appended;
+			current.close();
+		} finally {
+			lock.unlock();
+		}
+		synchronized (flushMonitor) {
+			flushMonitor.notifyAll();
+		}
+	}
+
+	private ByteBuffer encode(BrokerInfo info, TransactionRecord<?> record, long timestamp) {
+		while (true) {
+			scratch.clear();
+			try {
+				settings.codec().write(scratch, current.dictionary(), info, record, timestamp);
+				return scratch.flip();
+			} catch (BufferOverflowException e) {
+				scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,254 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.journal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.gmail.justisroot.broker.codec.TransactionEntry;
+
+/**
+ * A {@link JournalAggregator} of sale and purchase counts, volumes and values, grouped by Broker, world or player.<br>
+ * <br>
+ * Entries without the grouping key, such as those lacking a world ID when grouping by world, are ignored.
+ */
+public final class TransactionTotals implements JournalAggregator {
+
+	private final String name;
+	private final Function<TransactionEntry, Optional<String>> key;
+	private final Map<String, Totals> totals = new ConcurrentHashMap<>();
+
+	private TransactionTotals(String name, Function<TransactionEntry, Optional<String>> key) {
+		this.name = name;
+		this.key = key;
+	}
+
+	/**
+	 * Create totals grouped by Broker ID.
+	 *
+	 * @return a new aggregator of totals per Broker
+	 */
+	public static final TransactionTotals byBroker() {
+		return new TransactionTotals("totals-by-broker", entry -> Optional.of(entry.brokerID()));
+	}
+
+	/**
+	 * Create totals grouped by world ID.
+	 *
+	 * @return a new aggregator of totals per world
+	 */
+	public static final TransactionTotals byWorld() {
+		return new TransactionTotals("totals-by-world", entry -> entry.worldID().map(UUID::toString));
+	}
+
+	/**
+	 * Create totals grouped by player ID.
+	 *
+	 * @return a new aggregator of totals per player
+	 */
+	public static final TransactionTotals byPlayer() {
+		return new TransactionTotals("totals-by-player", entry -> entry.playerID().map(UUID::toString));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final String name() {
+		return this.name;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void accept(TransactionEntry entry) {
+		Optional<String> group = key.apply(entry);
+		if (group.isPresent()) totals.computeIfAbsent(group.get(), k -> new Totals()).add(entry);
+	}
+
+	/**
+	 * Get the totals of the provided group.
+	 *
+	 * @param key the Broker ID, or world or player UUID string, depending on the grouping
+	 * @return an Optional containing the totals of the group, empty if it had no transactions
+	 */
+	public final Optional<Totals> get(String key) {
+		return Optional.ofNullable(totals.get(key));
+	}
+
+	/**
+	 * Get the totals of every group.
+	 *
+	 * @return an unmodifiable view of the totals of every group
+	 */
+	public final Map<String, Totals> all() {
+		return Collections.unmodifiableMap(totals);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void save(DataOutput out) throws IOException {
+		out.writeInt(totals.size());
+		for (Map.Entry<String, Totals> entry : totals.entrySet()) {
+			out.writeUTF(entry.getKey());
+			entry.getValue().save(out);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void load(DataInput in) throws IOException {
+		totals.clear();
+		for (int i = in.readInt(); i > 0; i--) {
+			String group = in.readUTF();
+			Totals loaded = new Totals();
+			loaded.load(in);
+			totals.put(group, loaded);
+		}
+	}
+
+	/**
+	 * The sale and purchase totals of a single group.
+	 */
+	public static final class Totals {
+
+		private long sales, purchases, soldVolume, boughtVolume;
+		private BigDecimal saleValue = BigDecimal.ZERO, purchaseValue = BigDecimal.ZERO;
+
+		private Totals() {}
+
+		private synchronized void add(TransactionEntry entry) {
+			if (entry.isSale()) {
+				sales++;
+				soldVolume += entry.volume();
+				saleValue = saleValue.add(entry.value());
+			} else {
+				purchases++;
+				boughtVolume += entry.volume();
+				purchaseValue = purchaseValue.add(entry.value());
+			}
+		}
+
+		/**
+		 * Get the number of sales.
+		 *
+		 * @return the number of sales
+		 */
+		public synchronized long sales() {
+			return this.sales;
+		}
+
+		/**
+		 * Get the number of purchases.
+		 *
+		 * @return the number of purchases
+		 */
+		public synchronized long purchases() {
+			return this.purchases;
+		}
+
+		/**
+		 * Get the summed volume of all sales.
+		 *
+		 * @return the summed volume of all sales
+		 */
+		public synchronized long soldVolume() {
+			return this.soldVolume;
+		}
+
+		/**
+		 * Get the summed volume of all purchases.
+		 *
+		 * @return the summed volume of all purchases
+		 */
+		public synchronized long boughtVolume() {
+			return this.boughtVolume;
+		}
+
+		/**
+		 * Get the summed value of all sales.
+		 *
+		 * @return the summed value of all sales
+		 */
+		public synchronized BigDecimal saleValue() {
+			return this.saleValue;
+		}
+
+		/**
+		 * Get the summed value of all purchases.
+		 *
+		 * @return the summed value of all purchases
+		 */
+		public synchronized BigDecimal purchaseValue() {
+			return this.purchaseValue;
+		}
+
+		private synchronized void save(DataOutput out) throws IOException {
+			out.writeLong(sales);
+			out.writeLong(purchases);
+			out.writeLong(soldVolume);
+			out.writeLong(boughtVolume);
+			writeDecimal(out, saleValue);
+			writeDecimal(out, purchaseValue);
+		}
+
+		private synchronized void load(DataInput in) throws IOException {
+			sales = in.readLong();
+			purchases = in.readLong();
+			soldVolume = in.readLong();
+			boughtVolume = in.readLong();
+			saleValue = readDecimal(in);
+			purchaseValue = readDecimal(in);
+		}
+
+		private static void writeDecimal(DataOutput out, BigDecimal value) throws IOException {
+			byte[] unscaled = value.unscaledValue().toByteArray();
+			out.writeInt(value.scale());
+			out.writeInt(unscaled.length);
+			out.write(unscaled);
+		}
+
+		private static BigDecimal readDecimal(DataInput in) throws IOException {
+			int scale = in.readInt();
+			byte[] unscaled = new byte[in.readInt()];
+			in.readFully(unscaled);
+			return new BigDecimal(new BigInteger(unscaled), scale);
+		}
+
+	}
+
+}
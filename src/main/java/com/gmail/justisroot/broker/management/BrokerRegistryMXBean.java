@@ -0,0 +1,91 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.management;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Management interface of the Broker registry, registered with the platform MBeanServer as {@value #NAME}.<br>
+ * <br>
+ * Exposes the registered Brokers with their effective priorities, and the custom priorities, disabled and generous Brokers of the configuration.
+ * The configuration may be reloaded, and the priority of a Broker changed, without restarting.
+ */
+public interface BrokerRegistryMXBean {
+
+	/**
+	 * The ObjectName under which the registry is registered.
+	 */
+	String NAME = "com.gmail.justisroot.broker:type=Registry";
+
+	/**
+	 * Get every registered Broker.
+	 *
+	 * @return the registered Brokers, by descending priority within their type
+	 */
+	List<RegisteredBroker> getBrokers();
+
+	/**
+	 * Get the custom priorities of the configuration.
+	 *
+	 * @return the custom priorities, by Broker ID
+	 */
+	Map<String, Integer> getConfiguredPriorities();
+
+	/**
+	 * Get the IDs of the Brokers disabled by the configuration.
+	 *
+	 * @return the IDs of the disabled Brokers
+	 */
+	List<String> getDisabledBrokers();
+
+	/**
+	 * Get the IDs of the Brokers the configuration allows to pass generously.
+	 *
+	 * @return the IDs of the generous Brokers
+	 */
+	List<String> getGenerousBrokers();
+
+	/**
+	 * Get one greater than the highest index ever assigned to a Broker.
+	 *
+	 * @return the bound of the Broker indices
+	 */
+	int getIndexBound();
+
+	/**
+	 * Reload the configuration from disk, applying only the settings that changed.
+	 */
+	void reload();
+
+	/**
+	 * Configure and apply a custom priority for a Broker, enabling it if it was disabled.<br>
+	 * The new priority is saved to the configuration.
+	 *
+	 * @param brokerID the ID of the Broker
+	 * @param priority the new priority of the Broker
+	 * @throws IllegalArgumentException if the ID is null, empty or contains spaces
+	 */
+	void setPriority(String brokerID, int priority);
+
+}
@@ -0,0 +1,74 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.management;
+
+import java.util.List;
+
+/**
+ * Management interface of the Broker metrics, registered with the platform MBeanServer as {@value #NAME}.<br>
+ * <br>
+ * Exposes the completed transactions and call latencies of every registered Broker,
+ * see {@link com.gmail.justisroot.broker.metrics.BrokerMetrics}.
+ */
+public interface BrokerStatisticsMXBean {
+
+	/**
+	 * The ObjectName under which the statistics are registered.
+	 */
+	String NAME = "com.gmail.justisroot.broker:type=Statistics";
+
+	/**
+	 * Get whether calls into Brokers are being measured.
+	 *
+	 * @return true if calls are being measured
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Set whether calls into Brokers are measured.
+	 *
+	 * @param enabled true to measure calls into Brokers
+	 */
+	void setEnabled(boolean enabled);
+
+	/**
+	 * Get the throughput of every registered Broker.
+	 *
+	 * @return the throughput of every registered Broker
+	 */
+	List<BrokerThroughput> getThroughput();
+
+	/**
+	 * Get the latencies of every method called on every registered Broker.<br>
+	 * Methods never called are omitted.
+	 *
+	 * @return the latencies of every method called, per Broker
+	 */
+	List<MethodLatency> getLatencies();
+
+	/**
+	 * Reset the throughput and latencies of every registered Broker.
+	 */
+	void reset();
+
+}
@@ -0,0 +1,75 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.management;
+
+/**
+ * The throughput of a Broker, as exposed by the {@link BrokerStatisticsMXBean}.<br>
+ * Counts are cumulative since the Broker was registered, or last reset. Rates are derived by sampling them over time.
+ */
+public final class BrokerThroughput {
+
+	private final String brokerID;
+	private final long completedSales, completedPurchases, calls;
+
+	/**
+	 * @param brokerID the ID of the Broker
+	 * @param completedSales the number of completed sales
+	 * @param completedPurchases the number of completed purchases
+	 * @param calls the number of calls made into the Broker
+	 */
+	public BrokerThroughput(String brokerID, long completedSales, long completedPurchases, long calls) {
+		this.brokerID = brokerID;
+		this.completedSales = completedSales;
+		this.completedPurchases = completedPurchases;
+		this.calls = calls;
+	}
+
+	/**
+	 * @return the ID of the Broker
+	 */
+	public String getBrokerID() {
+		return this.brokerID;
+	}
+
+	/**
+	 * @return the number of completed sales
+	 */
+	public long getCompletedSales() {
+		return this.completedSales;
+	}
+
+	/**
+	 * @return the number of completed purchases
+	 */
+	public long getCompletedPurchases() {
+		return this.completedPurchases;
+	}
+
+	/**
+	 * @return the number of calls made into the Broker, across every method
+	 */
+	public long getCalls() {
+		return this.calls;
+	}
+
+}
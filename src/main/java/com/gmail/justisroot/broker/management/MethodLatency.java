@@ -0,0 +1,102 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.management;
+
+/**
+ * The latencies of one method of a Broker, as exposed by the {@link BrokerStatisticsMXBean}.
+ */
+public final class MethodLatency {
+
+	private final String brokerID, method;
+	private final long count, p50Nanos, p99Nanos, maxNanos;
+	private final double meanNanos;
+
+	/**
+	 * @param brokerID the ID of the Broker
+	 * @param method the name of the method
+	 * @param count the number of calls measured
+	 * @param meanNanos the mean latency in nanoseconds
+	 * @param p50Nanos the median latency in nanoseconds
+	 * @param p99Nanos the 99th percentile latency in nanoseconds
+	 * @param maxNanos the highest latency in nanoseconds
+	 */
+	public MethodLatency(String brokerID, String method, long count, double meanNanos, long p50Nanos, long p99Nanos, long maxNanos) {
+		this.brokerID = brokerID;
+		this.method = method;
+		this.count = count;
+		this.meanNanos = meanNanos;
+		this.p50Nanos = p50Nanos;
+		this.p99Nanos = p99Nanos;
+		this.maxNanos = maxNanos;
+	}
+
+	/**
+	 * @return the ID of the Broker
+	 */
+	public String getBrokerID() {
+		return this.brokerID;
+	}
+
+	/**
+	 * @return the name of the method, see {@link com.gmail.justisroot.broker.metrics.BrokerMethod}
+	 */
+	public String getMethod() {
+		return this.method;
+	}
+
+	/**
+	 * @return the number of calls measured
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * @return the mean latency in nanoseconds
+	 */
+	public double getMeanNanos() {
+		return this.meanNanos;
+	}
+
+	/**
+	 * @return the median latency in nanoseconds
+	 */
+	public long getP50Nanos() {
+		return this.p50Nanos;
+	}
+
+	/**
+	 * @return the 99th percentile latency in nanoseconds
+	 */
+	public long getP99Nanos() {
+		return this.p99Nanos;
+	}
+
+	/**
+	 * @return the highest latency in nanoseconds
+	 */
+	public long getMaxNanos() {
+		return this.maxNanos;
+	}
+
+}
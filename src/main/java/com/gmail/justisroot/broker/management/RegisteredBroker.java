@@ -0,0 +1,93 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.management;
+
+/**
+ * A registered Broker, as exposed by the {@link BrokerRegistryMXBean}.
+ */
+public final class RegisteredBroker {
+
+	private final String id, provider, type;
+	private final int priority, index;
+	private final boolean generous;
+
+	/**
+	 * @param id the ID of the Broker
+	 * @param provider the provider of the Broker
+	 * @param type the name of the type of object the Broker transacts
+	 * @param priority the effective priority of the Broker
+	 * @param index the index of the Broker
+	 * @param generous whether the Broker is configured to pass generously
+	 */
+	public RegisteredBroker(String id, String provider, String type, int priority, int index, boolean generous) {
+		this.id = id;
+		this.provider = provider;
+		this.type = type;
+		this.priority = priority;
+		this.index = index;
+		this.generous = generous;
+	}
+
+	/**
+	 * @return the ID of the Broker
+	 */
+	public String getId() {
+		return this.id;
+	}
+
+	/**
+	 * @return the provider of the Broker
+	 */
+	public String getProvider() {
+		return this.provider;
+	}
+
+	/**
+	 * @return the name of the type of object the Broker transacts
+	 */
+	public String getType() {
+		return this.type;
+	}
+
+	/**
+	 * @return the effective priority of the Broker, custom priorities taken into consideration
+	 */
+	public int getPriority() {
+		return this.priority;
+	}
+
+	/**
+	 * @return the index of the Broker
+	 */
+	public int getIndex() {
+		return this.index;
+	}
+
+	/**
+	 * @return true if the Broker is configured to pass generously
+	 */
+	public boolean isGenerous() {
+		return this.generous;
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.metrics;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * An immutable snapshot of the transactions aggregated over a window of time, see {@link TransactionAggregates}.
+ */
+public final class AggregateSnapshot {
+
+	private final Duration window;
+	private final long count, volume, value;
+
+	AggregateSnapshot(Duration window, long[] sum) {
+		this.window = window;
+		this.count = sum[0];
+		this.volume = sum[1];
+		this.value = sum[2];
+	}
+
+	/**
+	 * Get the window of time aggregated.
+	 *
+	 * @return the window of time aggregated
+	 */
+	public Duration window() {
+		return this.window;
+	}
+
+	/**
+	 * Get the number of completed transactions.
+	 *
+	 * @return the number of completed transactions
+	 */
+	public long count() {
+		return this.count;
+	}
+
+	/**
+	 * Get the total volume of the completed transactions.
+	 *
+	 * @return the total volume of the completed transactions
+	 */
+	public long volume() {
+		return this.volume;
+	}
+
+	/**
+	 * Get the total value of the completed transactions.<br>
+	 * Values are summed in fixed-point, with {@value TransactionAggregates#SCALE} decimal places.
+	 *
+	 * @return the total value of the completed transactions
+	 */
+	public BigDecimal value() {
+		return BigDecimal.valueOf(value, TransactionAggregates.SCALE);
+	}
+
+	@Override
+	public String toString() {
+		return "window=" + window + " count=" + count + " volume=" + volume + " value=" + value();
+	}
+
+}
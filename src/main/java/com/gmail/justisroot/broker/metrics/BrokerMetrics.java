@@ -0,0 +1,241 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.metrics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.gmail.justisroot.broker.BrokerInfo;
+import com.gmail.justisroot.broker.record.TransactionRecord;
+
+/**
+ * Latency metrics for every call BrokerAPI and its mediators make into a {@link com.gmail.justisroot.broker.Broker}.<br>
+ * <br>
+ * Each registered Broker has a {@link LatencyHistogram} per {@link BrokerMethod}, held in arrays indexed by {@link BrokerInfo#index()},
+ * so that recording a call is an array lookup and a few atomic operations, without locking or allocating.
+ * Each slot belongs to the registration it was last {@link #reset(BrokerInfo) reset} for. Calls made through the BrokerInfo of an earlier registration holding the same index,
+ * such as by a record or mediator that outlived its Broker, are ignored.
+ * Snapshots may be taken at any time, and optionally reset the histograms they read.<br>
+ * Completed sales and purchases are counted per Broker alongside, see {@link #completions(BrokerInfo, boolean)},
+ * and aggregated over rolling windows per Broker, world and player, see {@link #aggregates()}.<br>
+ * Contention on the registry lock is available through {@link #locks()}.<br>
+ * Routing telemetry per object type is available through {@link #routing()}.
+ */
+public final class BrokerMetrics {
+
+	private static final BrokerMetrics INSTANCE = new BrokerMetrics();
+
+	private volatile Slot[] slots = new Slot[0];
+	private final RoutingMetrics routing = new RoutingMetrics();
+	private final TransactionAggregates aggregates = new TransactionAggregates();
+	private final LockMetrics locks = new LockMetrics();
+	private volatile boolean enabled = true;
+
+	private BrokerMetrics() {}
+
+	/**
+	 * Get the current instance of the {@link BrokerMetrics}
+	 *
+	 * @return the current instance of the {@link BrokerMetrics}
+	 */
+	public static BrokerMetrics current() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Get whether calls into Brokers are being measured.
+	 *
+	 * @return true if calls are being measured
+	 */
+	public final boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * Set whether calls into Brokers are measured. Enabled by default.
+	 *
+	 * @param enabled true to measure calls into Brokers
+	 */
+	public final void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Get the routing telemetry, per object type.
+	 *
+	 * @return the routing telemetry
+	 */
+	public final RoutingMetrics routing() {
+		return this.routing;
+	}
+
+	/**
+	 * Get the rolling-window aggregates of completed transactions, per Broker, world and player.
+	 *
+	 * @return the rolling-window aggregates of completed transactions
+	 */
+	public final TransactionAggregates aggregates() {
+		return this.aggregates;
+	}
+
+	/**
+	 * Get the contention telemetry of the registry lock.
+	 *
+	 * @return the contention telemetry of the registry lock
+	 */
+	public final LockMetrics locks() {
+		return this.locks;
+	}
+
+	/**
+	 * Record the latency of a call into a Broker.<br>
+	 * Calls into unregistered Brokers, or through the BrokerInfo of a previous registration, are ignored.
+	 *
+	 * @param info the BrokerInfo of the Broker called
+	 * @param method the method called
+	 * @param nanos the latency of the call in nanoseconds
+	 */
+	public final void record(BrokerInfo info, BrokerMethod method, long nanos) {
+		Slot slot = slot(info);
+		if (slot != null) slot.methods[method.ordinal()].record(nanos);
+	}
+
+	/**
+	 * Count a completed transaction of a Broker, and add it to the {@link #aggregates()}.<br>
+	 * Transactions of unregistered Brokers, or of a previous registration, are only aggregated.
+	 *
+	 * @param record the record of the completed transaction
+	 * @param sale true if the transaction was a sale, false if it was a purchase
+	 */
+	public final void recordCompletion(TransactionRecord<?> record, boolean sale) {
+		Slot slot = slot(record.brokerInfo());
+		if (slot != null) (sale ? slot.sales : slot.purchases).increment();
+		aggregates.record(record, sale);
+	}
+
+	/**
+	 * Get the number of transactions of a Broker completed since it was registered, or last reset.
+	 *
+	 * @param info the BrokerInfo of the Broker
+	 * @param sale true to count sales, false to count purchases
+	 * @return the number of completed transactions
+	 */
+	public final long completions(BrokerInfo info, boolean sale) {
+		Slot slot = slot(info);
+		return slot == null ? 0 : (sale ? slot.sales : slot.purchases).sum();
+	}
+
+	private synchronized Slot create(int index) {
+		Slot[] slots = this.slots;
+		if (index < slots.length && slots[index] != null) return slots[index];
+		if (index >= slots.length) slots = Arrays.copyOf(slots, Math.max(index + 1, slots.length * 2));
+		Slot slot = new Slot();
+		slots[index] = slot;
+		this.slots = slots;
+		return slot;
+	}
+
+	/**
+	 * Take a snapshot of the latencies of one method of a Broker.
+	 *
+	 * @param info the BrokerInfo of the Broker
+	 * @param method the method
+	 * @return a snapshot of the latencies recorded
+	 */
+	public final LatencySnapshot snapshot(BrokerInfo info, BrokerMethod method) {
+		Slot slot = slot(info);
+		return slot == null ? LatencySnapshot.EMPTY : slot.methods[method.ordinal()].snapshot(false);
+	}
+
+	/**
+	 * Take a snapshot of the latencies of every method of a Broker.
+	 *
+	 * @param info the BrokerInfo of the Broker
+	 * @return a snapshot of the latencies recorded for each method
+	 */
+	public final Map<BrokerMethod, LatencySnapshot> snapshot(BrokerInfo info) {
+		return snapshot(info, false);
+	}
+
+	/**
+	 * Take a snapshot of the latencies of every method of a Broker, and reset them.
+	 *
+	 * @param info the BrokerInfo of the Broker
+	 * @return a snapshot of the latencies recorded for each method since the previous reset
+	 */
+	public final Map<BrokerMethod, LatencySnapshot> snapshotAndReset(BrokerInfo info) {
+		return snapshot(info, true);
+	}
+
+	private Map<BrokerMethod, LatencySnapshot> snapshot(BrokerInfo info, boolean reset) {
+		Slot slot = slot(info);
+		Map<BrokerMethod, LatencySnapshot> snapshot = new EnumMap<>(BrokerMethod.class);
+		for (BrokerMethod method : BrokerMethod.VALUES) snapshot.put(method, slot == null ? LatencySnapshot.EMPTY : slot.methods[method.ordinal()].snapshot(reset));
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+	/**
+	 * Reset the latencies of every method of a Broker, and its completed transaction counts, making the provided BrokerInfo the owner of its index.<br>
+	 * BrokerAPI resets a Broker when it is registered, so that it never inherits the latencies of a previous Broker holding the same index,
+	 * nor receives those still recorded through the BrokerInfo of the previous Broker.
+	 *
+	 * @param info the BrokerInfo of the Broker
+	 */
+	public final void reset(BrokerInfo info) {
+		int index = info.index();
+		if (index < 0) return;
+		Slot[] slots = this.slots;
+		Slot slot = index < slots.length ? slots[index] : null;
+		if (slot == null) slot = create(index);
+		slot.owner = info;
+		for (LatencyHistogram histogram : slot.methods) histogram.snapshot(true);
+		slot.sales.reset();
+		slot.purchases.reset();
+	}
+
+	private Slot slot(BrokerInfo info) {
+		int index = info.index();
+		Slot[] slots = this.slots;
+		Slot slot = index < 0 || index >= slots.length ? null : slots[index];
+		return slot == null || slot.owner != info ? null : slot;
+	}
+
+	/**
+	 * The metrics of a single Broker index, and the BrokerInfo of the registration they belong to.
+	 */
+	private static final class Slot {
+
+		private volatile BrokerInfo owner;
+		private final LatencyHistogram[] methods = new LatencyHistogram[BrokerMethod.VALUES.length];
+		private final LongAdder sales = new LongAdder(), purchases = new LongAdder();
+
+		private Slot() {
+			for (int i = 0; i < methods.length; i++) methods[i] = new LatencyHistogram();
+		}
+
+	}
+
+}
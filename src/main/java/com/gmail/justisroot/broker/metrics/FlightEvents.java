@@ -0,0 +1,148 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.metrics;
+
+import java.util.Optional;
+
+import com.gmail.justisroot.broker.BrokerInfo;
+import com.gmail.justisroot.broker.record.TransactionRecord;
+
+/**
+ * Emits JDK Flight Recorder events for routing, Broker calls, and the build and completion of transaction records.<br>
+ * <br>
+ * Events are only created while enabled in a recording, so that they cost no more than a flag check otherwise.
+ * Spanning events are started by a {@code begin} method, which returns null while disabled, and committed by the matching {@code end} method.
+ * Broker calls are emitted once complete, carrying their latency as measured by BrokerAPI.<br>
+ * <br>
+ * The jdk.jfr module is optional. On a runtime without it, every event is disabled.
+ */
+public final class FlightEvents {
+
+	private static final boolean AVAILABLE = available();
+
+	private FlightEvents() {}
+
+	private static boolean available() {
+		try {
+			FlightRecorder.callsEnabled();
+			return true;
+		} catch (LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Get whether the jdk.jfr module is available, without which no event is ever emitted.
+	 *
+	 * @return true if Flight Recorder events may be emitted
+	 */
+	public static boolean isAvailable() {
+		return AVAILABLE;
+	}
+
+	/**
+	 * Get whether Broker call events are enabled in a recording.
+	 *
+	 * @return true if Broker call events are enabled
+	 */
+	public static boolean callsEnabled() {
+		return AVAILABLE && FlightRecorder.callsEnabled();
+	}
+
+	/**
+	 * Emit a Broker call event, if enabled.
+	 *
+	 * @param info the BrokerInfo of the Broker called
+	 * @param method the method called
+	 * @param nanos the latency of the call in nanoseconds
+	 */
+	public static void call(BrokerInfo info, BrokerMethod method, long nanos) {
+		if (AVAILABLE) FlightRecorder.call(info, method, nanos);
+	}
+
+	/**
+	 * Start a routing event, if enabled.
+	 *
+	 * @return the started event, null if disabled
+	 */
+	public static Object beginRouting() {
+		return AVAILABLE ? FlightRecorder.beginRouting() : null;
+	}
+
+	/**
+	 * Commit a routing event.
+	 *
+	 * @param event the event returned by {@link #beginRouting()}
+	 * @param type the type of the object routed
+	 * @param sale true if routed for a sale, false if for a purchase
+	 * @param chosen the BrokerInfo of the chosen Broker, null if none was chosen
+	 * @param depth the position of the chosen Broker within its chain, or the number of Brokers consulted if none was chosen
+	 * @param passes the number of generous Brokers that passed on the object
+	 */
+	public static void endRouting(Object event, Class<?> type, boolean sale, BrokerInfo chosen, int depth, int passes) {
+		if (event != null) FlightRecorder.endRouting(event, type, sale, chosen, depth, passes);
+	}
+
+	/**
+	 * Start a record build event, if enabled.
+	 *
+	 * @return the started event, null if disabled
+	 */
+	public static Object beginBuild() {
+		return AVAILABLE ? FlightRecorder.beginBuild() : null;
+	}
+
+	/**
+	 * Commit a record build event.
+	 *
+	 * @param event the event returned by {@link #beginBuild()}
+	 * @param info the BrokerInfo of the Broker building the record
+	 * @param sale true if a sale record, false if a purchase record
+	 * @param failReason the fail reason of the built record, empty if successful
+	 */
+	public static void endBuild(Object event, BrokerInfo info, boolean sale, Optional<String> failReason) {
+		if (event != null) FlightRecorder.endBuild(event, info, sale, failReason);
+	}
+
+	/**
+	 * Start a record completion event, if enabled.
+	 *
+	 * @return the started event, null if disabled
+	 */
+	public static Object beginComplete() {
+		return AVAILABLE ? FlightRecorder.beginComplete() : null;
+	}
+
+	/**
+	 * Commit a record completion event.
+	 *
+	 * @param event the event returned by {@link #beginComplete()}
+	 * @param record the record completed
+	 * @param sale true if a sale record, false if a purchase record
+	 * @param completed true if the record completed, false if it had already been completed or was not a success
+	 */
+	public static void endComplete(Object event, TransactionRecord<?> record, boolean sale, boolean completed) {
+		if (event != null) FlightRecorder.endComplete(event, record, sale, completed);
+	}
+
+}
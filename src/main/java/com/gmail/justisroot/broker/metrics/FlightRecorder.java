@@ -0,0 +1,137 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.metrics;
+
+import java.util.Optional;
+
+import com.gmail.justisroot.broker.BrokerInfo;
+import com.gmail.justisroot.broker.record.TransactionRecord;
+
+import jdk.jfr.Event;
+
+/**
+ * The implementation of {@link FlightEvents}, the only class besides the events themselves to reference the jdk.jfr module.<br>
+ * It is only loaded once FlightEvents has found jdk.jfr to be available.
+ */
+final class FlightRecorder {
+
+	private static final Event CALLS = new BrokerCallEvent();
+
+	private FlightRecorder() {}
+
+	/**
+	 * @see FlightEvents#callsEnabled()
+	 */
+	static boolean callsEnabled() {
+		return CALLS.isEnabled();
+	}
+
+	/**
+	 * @see FlightEvents#call(BrokerInfo, BrokerMethod, long)
+	 */
+	static void call(BrokerInfo info, BrokerMethod method, long nanos) {
+		BrokerCallEvent event = new BrokerCallEvent();
+		if (!event.shouldCommit()) return;
+		event.brokerID = info.id();
+		event.provider = info.provider();
+		event.objectType = info.type().getName();
+		event.method = method.name();
+		event.latency = nanos;
+		event.commit();
+	}
+
+	/**
+	 * @see FlightEvents#beginRouting()
+	 */
+	static Object beginRouting() {
+		return begin(new RoutingEvent());
+	}
+
+	/**
+	 * @see FlightEvents#endRouting(Object, Class, boolean, BrokerInfo, int, int)
+	 */
+	static void endRouting(Object event, Class<?> type, boolean sale, BrokerInfo chosen, int depth, int passes) {
+		RoutingEvent routing = (RoutingEvent) event;
+		routing.end();
+		if (!routing.shouldCommit()) return;
+		routing.objectType = type.getName();
+		routing.sale = sale;
+		routing.brokerID = chosen == null ? null : chosen.id();
+		routing.depth = depth;
+		routing.passes = passes;
+		routing.commit();
+	}
+
+	/**
+	 * @see FlightEvents#beginBuild()
+	 */
+	static Object beginBuild() {
+		return begin(new RecordBuildEvent());
+	}
+
+	/**
+	 * @see FlightEvents#endBuild(Object, BrokerInfo, boolean, Optional)
+	 */
+	static void endBuild(Object event, BrokerInfo info, boolean sale, Optional<String> failReason) {
+		RecordBuildEvent build = (RecordBuildEvent) event;
+		build.end();
+		if (!build.shouldCommit()) return;
+		build.brokerID = info.id();
+		build.objectType = info.type().getName();
+		build.sale = sale;
+		build.cancelled = failReason.isPresent();
+		build.failReason = failReason.orElse(null);
+		build.commit();
+	}
+
+	/**
+	 * @see FlightEvents#beginComplete()
+	 */
+	static Object beginComplete() {
+		return begin(new RecordCompleteEvent());
+	}
+
+	/**
+	 * @see FlightEvents#endComplete(Object, TransactionRecord, boolean, boolean)
+	 */
+	static void endComplete(Object event, TransactionRecord<?> record, boolean sale, boolean completed) {
+		RecordCompleteEvent complete = (RecordCompleteEvent) event;
+		complete.end();
+		if (!complete.shouldCommit()) return;
+		complete.brokerID = record.brokerInfo().id();
+		complete.objectType = record.brokerInfo().type().getName();
+		complete.sale = sale;
+		complete.transactionID = record.id().toString();
+		complete.volume = record.volume();
+		complete.value = record.value() == null ? null : record.value().toPlainString();
+		complete.completed = completed;
+		complete.commit();
+	}
+
+	private static Object begin(Event event) {
+		if (!event.isEnabled()) return null;
+		event.begin();
+		return event;
+	}
+
+}
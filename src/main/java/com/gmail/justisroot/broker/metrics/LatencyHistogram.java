@@ -0,0 +1,100 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds.<br>
+ * <br>
+ * Latencies are counted in log-linear buckets: each power of two is split into four buckets, so that any recorded latency is known to within 25%.
+ * Recording is an atomic increment of its bucket and an addition to the total, striped by a {@link LongAdder} so that concurrent recordings don't contend on it,
+ * plus an atomic update of the maximum when exceeded.
+ */
+final class LatencyHistogram {
+
+	static final int BUCKETS = bucket(Long.MAX_VALUE) + 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder total = new LongAdder();
+	private final AtomicLong reported = new AtomicLong(), max = new AtomicLong();
+
+	/**
+	 * Get the bucket counting the provided latency.
+	 *
+	 * @param nanos the latency in nanoseconds, at least 0
+	 * @return the index of its bucket
+	 */
+	static int bucket(long nanos) {
+		if (nanos < 4) return (int) nanos;
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		return (exponent - 1) * 4 + (int) ((nanos >>> (exponent - 2)) & 3);
+	}
+
+	/**
+	 * Get the highest latency counted by the provided bucket.
+	 *
+	 * @param bucket the index of the bucket
+	 * @return the highest latency in nanoseconds counted by the bucket
+	 */
+	static long highest(int bucket) {
+		if (bucket < 3) return bucket;
+		if (bucket == BUCKETS - 1) return Long.MAX_VALUE;
+		int next = bucket + 1, exponent = next / 4 + 1;
+		return ((4L + next % 4) << (exponent - 2)) - 1;
+	}
+
+	/**
+	 * Record a latency.
+	 *
+	 * @param nanos the latency in nanoseconds, negative latencies are counted as 0
+	 */
+	final void record(long nanos) {
+		if (nanos < 0) nanos = 0;
+		counts.incrementAndGet(bucket(nanos));
+		total.add(nanos);
+		long current = max.get();
+		while (nanos > current && !max.compareAndSet(current, nanos)) current = max.get();
+	}
+
+	/**
+	 * Take a snapshot of the recorded latencies, optionally resetting them.<br>
+	 * Latencies recorded concurrently are either included in the snapshot or left for the next one, never lost.
+	 * The total is never reset, rather the portion of it already reported by a resetting snapshot is subtracted.
+	 *
+	 * @param reset true to reset the histogram as it is read
+	 * @return a snapshot of the recorded latencies
+	 */
+	final LatencySnapshot snapshot(boolean reset) {
+		long[] buckets = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) buckets[i] = reset ? counts.getAndSet(i, 0) : counts.get(i);
+		long sum = total.sum(), reported = this.reported.get();
+		if (reset) {
+			while (!this.reported.compareAndSet(reported, Math.max(sum, reported))) reported = this.reported.get();
+		}
+		return new LatencySnapshot(buckets, Math.max(0, sum - reported), reset ? max.getAndSet(0) : max.get());
+	}
+
+}
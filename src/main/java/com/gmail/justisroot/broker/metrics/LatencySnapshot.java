@@ -0,0 +1,126 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.metrics;
+
+/**
+ * An immutable snapshot of the latencies of one {@link BrokerMethod} of one Broker.<br>
+ * <br>
+ * Percentiles are accurate to within 25%, and never exceed the exact maximum.
+ */
+public final class LatencySnapshot {
+
+	static final LatencySnapshot EMPTY = new LatencySnapshot(new long[LatencyHistogram.BUCKETS], 0, 0);
+
+	private final long[] buckets;
+	private final long count, total, max;
+
+	LatencySnapshot(long[] buckets, long total, long max) {
+		long count = 0;
+		for (long bucket : buckets) count += bucket;
+		this.buckets = buckets;
+		this.count = count;
+		this.total = total;
+		this.max = max;
+	}
+
+	/**
+	 * Get the number of calls recorded.
+	 *
+	 * @return the number of calls recorded
+	 */
+	public long count() {
+		return this.count;
+	}
+
+	/**
+	 * Get the mean latency of the recorded calls.
+	 *
+	 * @return the mean latency in nanoseconds, 0 if no calls were recorded
+	 */
+	public double mean() {
+		return count == 0 ? 0 : (double) total / count;
+	}
+
+	/**
+	 * Get the highest latency recorded.
+	 *
+	 * @return the highest latency in nanoseconds, 0 if no calls were recorded
+	 */
+	public long max() {
+		return this.max;
+	}
+
+	/**
+	 * Get the median latency of the recorded calls.
+	 *
+	 * @return the median latency in nanoseconds
+	 */
+	public long p50() {
+		return percentile(50);
+	}
+
+	/**
+	 * Get the 99th percentile latency of the recorded calls.
+	 *
+	 * @return the 99th percentile latency in nanoseconds
+	 */
+	public long p99() {
+		return percentile(99);
+	}
+
+	/**
+	 * Get the latency that the provided percentage of recorded calls did not exceed.
+	 *
+	 * @param percentile the percentage of calls, between 0 and 100
+	 * @return the latency in nanoseconds, 0 if no calls were recorded
+	 * @throws IllegalArgumentException if the percentile is not between 0 and 100
+	 */
+	public long percentile(double percentile) {
+		if (!(percentile >= 0 && percentile <= 100)) throw new IllegalArgumentException("Percentile must be between 0 and 100");
+		if (count == 0) return 0;
+		long rank = Math.max(1, (long) Math.ceil(count * percentile / 100)), seen = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			seen += buckets[i];
+			if (seen >= rank) return Math.min(LatencyHistogram.highest(i), max);
+		}
+		return max;
+	}
+
+	/**
+	 * Combine this snapshot with another, as if their calls had been recorded together.
+	 *
+	 * @param other the snapshot to combine with
+	 * @return a snapshot of the calls of both snapshots
+	 */
+	public LatencySnapshot merge(LatencySnapshot other) {
+		long[] buckets = this.buckets.clone();
+		for (int i = 0; i < buckets.length; i++) buckets[i] += other.buckets[i];
+		return new LatencySnapshot(buckets, total + other.total, Math.max(max, other.max));
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + count + " p50=" + p50() + "ns p99=" + p99() + "ns max=" + max + "ns";
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.metrics;
+
+/**
+ * An immutable record of a thread holding the registry lock, see {@link LockMetrics}.
+ */
+public final class LockHolder {
+
+	private final String threadName;
+	private final long threadID, heldNanos;
+	private final LockSite site;
+
+	LockHolder(Thread thread, LockSite site, long heldNanos) {
+		this.threadName = thread.getName();
+		this.threadID = thread.getId();
+		this.site = site;
+		this.heldNanos = heldNanos;
+	}
+
+	/**
+	 * Get the name of the thread holding the lock.
+	 *
+	 * @return the name of the thread
+	 */
+	public String threadName() {
+		return this.threadName;
+	}
+
+	/**
+	 * Get the ID of the thread holding the lock.
+	 *
+	 * @return the ID of the thread
+	 */
+	public long threadID() {
+		return this.threadID;
+	}
+
+	/**
+	 * Get the operation the lock is held for.
+	 *
+	 * @return the operation the lock is held for
+	 */
+	public LockSite site() {
+		return this.site;
+	}
+
+	/**
+	 * Get how long the lock was held.
+	 *
+	 * @return the duration the lock was held in nanoseconds, up to the moment this record was taken if it still is
+	 */
+	public long heldNanos() {
+		return this.heldNanos;
+	}
+
+	@Override
+	public String toString() {
+		return threadName + " (" + threadID + ") " + site + " for " + heldNanos + "ns";
+	}
+
+}
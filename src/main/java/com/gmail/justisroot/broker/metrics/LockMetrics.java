@@ -0,0 +1,158 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention telemetry for the lock guarding the {@link com.gmail.justisroot.broker.BrokerAPI} registry, per {@link LockSite}.<br>
+ * <br>
+ * For each operation, records how long threads waited to acquire the lock, how many acquisitions had to wait at all, and how long the lock was then held,
+ * in {@link LatencyHistogram}s. The thread currently holding the lock, and the longest hold since the last reset, are available as {@link LockHolder}s.<br>
+ * Uncontended acquisitions are recorded as waits of 0, without timing the wait.
+ */
+public final class LockMetrics {
+
+	private final LatencyHistogram[] waits = new LatencyHistogram[LockSite.VALUES.length], holds = new LatencyHistogram[LockSite.VALUES.length];
+	private final LongAdder[] contended = new LongAdder[LockSite.VALUES.length];
+	private final AtomicReference<LockHolder> longest = new AtomicReference<>();
+
+	private volatile Thread holder;
+	private volatile LockSite site;
+	private volatile long since;
+
+	LockMetrics() {
+		for (int i = 0; i < waits.length; i++) {
+			waits[i] = new LatencyHistogram();
+			holds[i] = new LatencyHistogram();
+			contended[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Record the acquisition of the lock by the current thread.
+	 *
+	 * @param site the operation the lock was acquired for
+	 * @param wait how long the thread waited for the lock in nanoseconds, 0 if it did not have to
+	 * @param now the time of the acquisition in nanoseconds
+	 */
+	public final void acquired(LockSite site, long wait, long now) {
+		waits[site.ordinal()].record(wait);
+		if (wait > 0) contended[site.ordinal()].increment();
+		this.since = now;
+		this.site = site;
+		this.holder = Thread.currentThread();
+	}
+
+	/**
+	 * Record the release of the lock by the current thread.
+	 *
+	 * @param site the operation the lock was acquired for
+	 * @param hold how long the lock was held in nanoseconds
+	 */
+	public final void released(LockSite site, long hold) {
+		this.holder = null;
+		holds[site.ordinal()].record(hold);
+		LockHolder longest = this.longest.get();
+		if (longest == null || hold > longest.heldNanos()) {
+			LockHolder record = new LockHolder(Thread.currentThread(), site, hold);
+			while ((longest == null || hold > longest.heldNanos()) && !this.longest.compareAndSet(longest, record)) longest = this.longest.get();
+		}
+	}
+
+	/**
+	 * Take a snapshot of the waits to acquire the lock, per operation.
+	 *
+	 * @return the waits to acquire the lock in nanoseconds, per operation
+	 */
+	public final Map<LockSite, LatencySnapshot> waits() {
+		return snapshot(waits);
+	}
+
+	/**
+	 * Take a snapshot of the durations the lock was held, per operation.
+	 *
+	 * @return the durations the lock was held in nanoseconds, per operation
+	 */
+	public final Map<LockSite, LatencySnapshot> holds() {
+		return snapshot(holds);
+	}
+
+	private static Map<LockSite, LatencySnapshot> snapshot(LatencyHistogram[] histograms) {
+		Map<LockSite, LatencySnapshot> snapshot = new EnumMap<>(LockSite.class);
+		for (LockSite site : LockSite.VALUES) snapshot.put(site, histograms[site.ordinal()].snapshot(false));
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+	/**
+	 * Get the number of acquisitions for the provided operation that had to wait for another thread to release the lock.
+	 *
+	 * @param site the operation
+	 * @return the number of contended acquisitions
+	 */
+	public final long contended(LockSite site) {
+		return contended[site.ordinal()].sum();
+	}
+
+	/**
+	 * Get the thread currently holding the lock, as far as it was measured.
+	 *
+	 * @return the current holder of the lock, empty if it is not held
+	 */
+	public final Optional<LockHolder> holder() {
+		while (true) {
+			Thread holder = this.holder;
+			if (holder == null) return Optional.empty();
+			LockSite site = this.site;
+			long since = this.since;
+			if (this.holder == holder) return Optional.of(new LockHolder(holder, site, Math.max(0, System.nanoTime() - since)));
+		}
+	}
+
+	/**
+	 * Get the longest the lock was held since the last reset.
+	 *
+	 * @return the longest hold of the lock, empty if it was never released
+	 */
+	public final Optional<LockHolder> longestHold() {
+		return Optional.ofNullable(longest.get());
+	}
+
+	/**
+	 * Discard all contention telemetry, except for the current holder.
+	 */
+	public final void reset() {
+		for (int i = 0; i < waits.length; i++) {
+			waits[i].snapshot(true);
+			holds[i].snapshot(true);
+			contended[i].reset();
+		}
+		longest.set(null);
+	}
+
+}
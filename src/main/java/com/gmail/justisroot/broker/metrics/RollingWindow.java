@@ -0,0 +1,117 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A ring of time buckets counting transactions, and summing their volumes and fixed-point values, for sales and purchases.<br>
+ * <br>
+ * The ring covers {@code buckets * resolution} milliseconds. A bucket is reused once the ring wraps around to it, and only reset by the first update landing in it,
+ * so that updates are O(1) and never allocate. Counters are striped {@link LongAdder}s, so that concurrent updates do not contend on them.
+ * A query sums the buckets still within the requested window, saturating at the bounds of a long, and is O(buckets).<br>
+ * Updates racing a bucket's reset may be dropped or land in the following interval; aggregates are approximate by at most that.
+ */
+final class RollingWindow {
+
+	private static final int COUNT = 0, VOLUME = 1, VALUE = 2, FIELDS = 3;
+
+	private final long resolution;
+	private final Bucket[] ring;
+
+	RollingWindow(long resolution, int buckets) {
+		this.resolution = resolution;
+		this.ring = new Bucket[buckets];
+		for (int i = 0; i < buckets; i++) ring[i] = new Bucket();
+	}
+
+	/**
+	 * @return the span of the whole ring, in milliseconds
+	 */
+	final long span() {
+		return resolution * ring.length;
+	}
+
+	/**
+	 * Add a transaction to the bucket covering the provided time.
+	 *
+	 * @param now the current time in milliseconds
+	 * @param sale true for a sale, false for a purchase
+	 * @param volume the volume of the transaction
+	 * @param value the value of the transaction, in fixed-point
+	 */
+	final void add(long now, boolean sale, long volume, long value) {
+		long slot = now / resolution;
+		Bucket bucket = ring[(int) (slot % ring.length)];
+		if (bucket.slot != slot) bucket.roll(slot);
+		int offset = sale ? 0 : FIELDS;
+		bucket.counters[offset + COUNT].increment();
+		bucket.counters[offset + VOLUME].add(volume);
+		bucket.counters[offset + VALUE].add(value);
+	}
+
+	/**
+	 * Sum the transactions of the buckets within the provided window.<br>
+	 * The bucket currently being filled counts towards the window, so the window is rounded up to whole buckets.
+	 *
+	 * @param now the current time in milliseconds
+	 * @param window the window in milliseconds, at most {@link #span()}
+	 * @param sale true to sum sales, false to sum purchases
+	 * @return the count, volume and fixed-point value of the transactions, in that order, saturated at the bounds of a long
+	 */
+	final long[] sum(long now, long window, boolean sale) {
+		long current = now / resolution, oldest = current - Math.min(ring.length, Math.max(1, (window + resolution - 1) / resolution)) + 1;
+		int offset = sale ? 0 : FIELDS;
+		long[] sum = new long[FIELDS];
+		for (Bucket bucket : ring) {
+			long slot = bucket.slot;
+			if (slot < oldest || slot > current) continue;
+			for (int i = 0; i < FIELDS; i++) sum[i] = add(sum[i], bucket.counters[offset + i].sum());
+		}
+		return sum;
+	}
+
+	private static long add(long a, long b) {
+		long sum = a + b;
+		if (((a ^ sum) & (b ^ sum)) < 0) return a < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+		return sum;
+	}
+
+	private static final class Bucket {
+
+		private final LongAdder[] counters = new LongAdder[FIELDS * 2];
+		private volatile long slot = -1;
+
+		private Bucket() {
+			for (int i = 0; i < counters.length; i++) counters[i] = new LongAdder();
+		}
+
+		private synchronized void roll(long slot) {
+			if (this.slot >= slot) return;
+			for (LongAdder counter : counters) counter.reset();
+			this.slot = slot;
+		}
+
+	}
+
+}
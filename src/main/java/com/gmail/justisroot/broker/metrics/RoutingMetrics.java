@@ -0,0 +1,120 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.metrics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Routing telemetry for {@link com.gmail.justisroot.broker.BrokerAPI#forPurchase(java.util.UUID, java.util.UUID, Object)} and
+ * {@link com.gmail.justisroot.broker.BrokerAPI#forSale(java.util.UUID, java.util.UUID, Object)}, per object type.<br>
+ * <br>
+ * For each type, counts the routing calls, the calls that found a Broker and those that found none, how deep into the chain of Brokers handling that type the chosen Broker was,
+ * and how often a generous Broker passed on an object it could have handled. Counters are striped, so that concurrent routing does not contend on them.
+ */
+public final class RoutingMetrics {
+
+	private final Map<Class<?>, Counters> purchases = new ConcurrentHashMap<>(), sales = new ConcurrentHashMap<>();
+
+	RoutingMetrics() {}
+
+	/**
+	 * Record the outcome of a routing call.
+	 *
+	 * @param type the type of the object routed
+	 * @param sale true if routed for a sale, false if for a purchase
+	 * @param depth the position of the chosen Broker within the chain of Brokers handling the type, starting at 0, or the number of Brokers consulted if none was chosen
+	 * @param passes the number of generous Brokers that passed on the object
+	 * @param hit true if a Broker was chosen
+	 */
+	public final void record(Class<?> type, boolean sale, int depth, int passes, boolean hit) {
+		Map<Class<?>, Counters> counters = sale ? sales : purchases;
+		Counters typed = counters.get(type);
+		if (typed == null) typed = counters.computeIfAbsent(type, key -> new Counters());
+		typed.record(depth, passes, hit);
+	}
+
+	/**
+	 * Take a snapshot of the routing telemetry for purchases.
+	 *
+	 * @return the routing telemetry for purchases, per object type
+	 */
+	public final Map<Class<?>, RoutingSnapshot> purchases() {
+		return snapshot(purchases);
+	}
+
+	/**
+	 * Take a snapshot of the routing telemetry for sales.
+	 *
+	 * @return the routing telemetry for sales, per object type
+	 */
+	public final Map<Class<?>, RoutingSnapshot> sales() {
+		return snapshot(sales);
+	}
+
+	/**
+	 * Discard all routing telemetry.
+	 */
+	public final void reset() {
+		purchases.clear();
+		sales.clear();
+	}
+
+	private static Map<Class<?>, RoutingSnapshot> snapshot(Map<Class<?>, Counters> counters) {
+		Map<Class<?>, RoutingSnapshot> snapshot = new HashMap<>();
+		counters.forEach((type, typed) -> snapshot.put(type, typed.snapshot(type)));
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+	private static final class Counters {
+
+		private final LongAdder hits = new LongAdder(), misses = new LongAdder(), passes = new LongAdder(), depth = new LongAdder();
+		private final LongAdder[] depths = new LongAdder[RoutingSnapshot.DEPTHS];
+
+		private Counters() {
+			for (int i = 0; i < depths.length; i++) depths[i] = new LongAdder();
+		}
+
+		private void record(int depth, int passes, boolean hit) {
+			if (passes > 0) this.passes.add(passes);
+			if (!hit) {
+				misses.increment();
+				return;
+			}
+			hits.increment();
+			this.depth.add(depth);
+			depths[Math.min(depth, depths.length - 1)].increment();
+		}
+
+		private RoutingSnapshot snapshot(Class<?> type) {
+			long[] depths = new long[this.depths.length];
+			for (int i = 0; i < depths.length; i++) depths[i] = this.depths[i].sum();
+			return new RoutingSnapshot(type, hits.sum(), misses.sum(), passes.sum(), depth.sum(), depths);
+		}
+
+	}
+
+}
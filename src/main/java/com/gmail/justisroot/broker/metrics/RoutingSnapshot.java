@@ -0,0 +1,126 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.metrics;
+
+/**
+ * An immutable snapshot of the routing telemetry of one object type, see {@link RoutingMetrics}.
+ */
+public final class RoutingSnapshot {
+
+	static final int DEPTHS = 8;
+
+	private final Class<?> type;
+	private final long hits, misses, passes, depth;
+	private final long[] depths;
+
+	RoutingSnapshot(Class<?> type, long hits, long misses, long passes, long depth, long[] depths) {
+		this.type = type;
+		this.hits = hits;
+		this.misses = misses;
+		this.passes = passes;
+		this.depth = depth;
+		this.depths = depths;
+	}
+
+	/**
+	 * Get the type of the objects routed.
+	 *
+	 * @return the type of the objects routed
+	 */
+	public Class<?> type() {
+		return this.type;
+	}
+
+	/**
+	 * Get the number of routing calls.
+	 *
+	 * @return the number of routing calls
+	 */
+	public long calls() {
+		return hits + misses;
+	}
+
+	/**
+	 * Get the number of routing calls that found a Broker.
+	 *
+	 * @return the number of routing calls that found a Broker
+	 */
+	public long hits() {
+		return this.hits;
+	}
+
+	/**
+	 * Get the number of routing calls that found no Broker.
+	 *
+	 * @return the number of routing calls that found no Broker
+	 */
+	public long misses() {
+		return this.misses;
+	}
+
+	/**
+	 * Get the fraction of routing calls that found a Broker.
+	 *
+	 * @return the hit rate, between 0 and 1
+	 */
+	public double hitRate() {
+		long calls = calls();
+		return calls == 0 ? 0 : (double) hits / calls;
+	}
+
+	/**
+	 * Get the number of times a generous Broker passed on an object it could have handled.
+	 *
+	 * @return the number of generous passes
+	 */
+	public long generousPasses() {
+		return this.passes;
+	}
+
+	/**
+	 * Get the mean position of the chosen Broker within the chain of Brokers handling this type, where 0 is the highest priority Broker.
+	 *
+	 * @return the mean depth of the chosen Broker, 0 if no Broker was chosen
+	 */
+	public double meanDepth() {
+		return hits == 0 ? 0 : (double) depth / hits;
+	}
+
+	/**
+	 * Get the number of routing calls that chose the Broker at the provided position within the chain.<br>
+	 * Positions beyond the last tracked position are counted with it.
+	 *
+	 * @param depth the position within the chain, starting at 0
+	 * @return the number of routing calls that chose the Broker at that position
+	 */
+	public long hitsAtDepth(int depth) {
+		if (depth < 0) return 0;
+		return depths[Math.min(depth, DEPTHS - 1)];
+	}
+
+	@Override
+	public String toString() {
+		return type.getName() + ": calls=" + calls() + " hitRate=" + hitRate() + " meanDepth=" + meanDepth() + " generousPasses=" + passes;
+	}
+
+}
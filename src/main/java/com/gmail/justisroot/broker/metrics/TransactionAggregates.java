@@ -0,0 +1,263 @@
+/*
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.gmail.justisroot.broker.metrics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.gmail.justisroot.broker.record.TransactionRecord;
+
+/**
+ * Rolling-window aggregates of completed transactions, per Broker, per world and per player.<br>
+ * <br>
+ * Every completed {@link com.gmail.justisroot.broker.record.SaleRecord} and {@link com.gmail.justisroot.broker.record.PurchaseRecord} is counted,
+ * and its volume and value summed, separately for sales and purchases. Each key holds a ring of one second buckets covering the last minute,
+ * and a ring of one minute buckets covering the last hour, see {@link RollingWindow}. Recording a transaction is O(1), querying a window is O(60).<br>
+ * Windows of up to a minute are resolved to the second, longer windows to the minute, rounded up to include the bucket currently being filled.<br>
+ * Values are converted to fixed-point with {@value #SCALE} decimal places, saturating at the bounds of a long, and the sums of a window saturate likewise.
+ * The total of a single bucket is not checked, and wraps beyond those bounds.<br>
+ * <br>
+ * Keys that see no transaction for longer than {@link #MAX_WINDOW} are discarded. A transaction claims its aggregate before updating it,
+ * so an aggregate is never discarded while a transaction is being added to it.
+ */
+public final class TransactionAggregates {
+
+	/**
+	 * The number of decimal places that transaction values are summed with.
+	 */
+	public static final int SCALE = 4;
+
+	/**
+	 * The longest window that may be queried.
+	 */
+	public static final Duration MAX_WINDOW = Duration.ofHours(1);
+
+	private static final long SECOND = 1000, MINUTE = 60 * SECOND;
+
+	private final LongSupplier clock;
+	private final Map<String, Aggregate> brokers = new ConcurrentHashMap<>();
+	private final Map<UUID, Aggregate> worlds = new ConcurrentHashMap<>(), players = new ConcurrentHashMap<>();
+	private final AtomicLong pruned;
+
+	TransactionAggregates() {
+		this(System::currentTimeMillis);
+	}
+
+	TransactionAggregates(LongSupplier clock) {
+		this.clock = clock;
+		this.pruned = new AtomicLong(clock.getAsLong());
+	}
+
+	/**
+	 * Aggregate a completed transaction.
+	 *
+	 * @param record the record of the completed transaction
+	 * @param sale true if the transaction was a sale, false if it was a purchase
+	 */
+	public final void record(TransactionRecord<?> record, boolean sale) {
+		record(record.brokerInfo().id(), record.worldID().orElse(null), record.playerID().orElse(null), sale, record.volume(), record.value());
+	}
+
+	final void record(String brokerID, UUID worldID, UUID playerID, boolean sale, int volume, BigDecimal value) {
+		long now = clock.getAsLong(), fixed = fixed(value);
+		aggregate(brokers, brokerID, now).add(now, sale, volume, fixed);
+		if (worldID != null) aggregate(worlds, worldID, now).add(now, sale, volume, fixed);
+		if (playerID != null) aggregate(players, playerID, now).add(now, sale, volume, fixed);
+		long pruned = this.pruned.get();
+		if (now - pruned >= MINUTE && this.pruned.compareAndSet(pruned, now)) prune(now);
+	}
+
+	private static <K> Aggregate aggregate(Map<K, Aggregate> aggregates, K key, long now) {
+		Aggregate aggregate = aggregates.get(key);
+		while (aggregate == null || !aggregate.claim(now)) {
+			if (aggregate != null) aggregates.remove(key, aggregate);
+			aggregate = aggregates.computeIfAbsent(key, k -> new Aggregate(now));
+		}
+		return aggregate;
+	}
+
+	/**
+	 * Convert a value to fixed-point, saturating at the bounds of a long.
+	 *
+	 * @param value the value to convert
+	 * @return the value in units of 10^-{@value #SCALE}
+	 */
+	static long fixed(BigDecimal value) {
+		if (value == null) return 0;
+		BigDecimal scaled = value.movePointRight(SCALE).setScale(0, RoundingMode.HALF_EVEN);
+		if (scaled.unscaledValue().bitLength() < 64) return scaled.longValue();
+		return scaled.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+	}
+
+	private void prune(long now) {
+		long cutoff = now - MAX_WINDOW.toMillis();
+		prune(brokers, cutoff);
+		prune(worlds, cutoff);
+		prune(players, cutoff);
+	}
+
+	private static <K> void prune(Map<K, Aggregate> aggregates, long cutoff) {
+		aggregates.forEach((key, aggregate) -> {
+			if (aggregate.retire(cutoff)) aggregates.remove(key, aggregate);
+		});
+	}
+
+	/**
+	 * Aggregate the transactions of a Broker over the provided window.
+	 *
+	 * @param brokerID the ID of the Broker
+	 * @param window the window of time to aggregate, up to {@link #MAX_WINDOW}
+	 * @param sale true to aggregate sales, false to aggregate purchases
+	 * @return the aggregated transactions
+	 * @throws IllegalArgumentException if either argument is null, or the window is not positive or exceeds {@link #MAX_WINDOW}
+	 */
+	public final AggregateSnapshot broker(String brokerID, Duration window, boolean sale) {
+		if (brokerID == null) throw new IllegalArgumentException("No null arguments!");
+		return snapshot(brokers.get(brokerID), window, sale);
+	}
+
+	/**
+	 * Aggregate the transactions in a world over the provided window.
+	 *
+	 * @param worldID the ID of the world
+	 * @param window the window of time to aggregate, up to {@link #MAX_WINDOW}
+	 * @param sale true to aggregate sales, false to aggregate purchases
+	 * @return the aggregated transactions
+	 * @throws IllegalArgumentException if either argument is null, or the window is not positive or exceeds {@link #MAX_WINDOW}
+	 */
+	public final AggregateSnapshot world(UUID worldID, Duration window, boolean sale) {
+		if (worldID == null) throw new IllegalArgumentException("No null arguments!");
+		return snapshot(worlds.get(worldID), window, sale);
+	}
+
+	/**
+	 * Aggregate the transactions of a player over the provided window.
+	 *
+	 * @param playerID the ID of the player
+	 * @param window the window of time to aggregate, up to {@link #MAX_WINDOW}
+	 * @param sale true to aggregate sales, false to aggregate purchases
+	 * @return the aggregated transactions
+	 * @throws IllegalArgumentException if either argument is null, or the window is not positive or exceeds {@link #MAX_WINDOW}
+	 */
+	public final AggregateSnapshot player(UUID playerID, Duration window, boolean sale) {
+		if (playerID == null) throw new IllegalArgumentException("No null arguments!");
+		return snapshot(players.get(playerID), window, sale);
+	}
+
+	/**
+	 * Aggregate the transactions of every Broker that transacted within the last {@link #MAX_WINDOW}, over the provided window.
+	 *
+	 * @param window the window of time to aggregate, up to {@link #MAX_WINDOW}
+	 * @param sale true to aggregate sales, false to aggregate purchases
+	 * @return the aggregated transactions, per Broker ID
+	 * @throws IllegalArgumentException if the window is null, not positive or exceeds {@link #MAX_WINDOW}
+	 */
+	public final Map<String, AggregateSnapshot> brokers(Duration window, boolean sale) {
+		return snapshot(brokers, window, sale);
+	}
+
+	/**
+	 * Aggregate the transactions in every world transacted in within the last {@link #MAX_WINDOW}, over the provided window.
+	 *
+	 * @param window the window of time to aggregate, up to {@link #MAX_WINDOW}
+	 * @param sale true to aggregate sales, false to aggregate purchases
+	 * @return the aggregated transactions, per world ID
+	 * @throws IllegalArgumentException if the window is null, not positive or exceeds {@link #MAX_WINDOW}
+	 */
+	public final Map<UUID, AggregateSnapshot> worlds(Duration window, boolean sale) {
+		return snapshot(worlds, window, sale);
+	}
+
+	private <K> Map<K, AggregateSnapshot> snapshot(Map<K, Aggregate> aggregates, Duration window, boolean sale) {
+		validate(window);
+		Map<K, AggregateSnapshot> snapshot = new HashMap<>();
+		aggregates.forEach((key, aggregate) -> snapshot.put(key, snapshot(aggregate, window, sale)));
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+	private AggregateSnapshot snapshot(Aggregate aggregate, Duration window, boolean sale) {
+		validate(window);
+		if (aggregate == null) return new AggregateSnapshot(window, new long[3]);
+		return new AggregateSnapshot(window, aggregate.sum(clock.getAsLong(), window.toMillis(), sale));
+	}
+
+	private static void validate(Duration window) {
+		if (window == null) throw new IllegalArgumentException("No null arguments!");
+		if (window.isNegative() || window.isZero() || window.compareTo(MAX_WINDOW) > 0) throw new IllegalArgumentException("Window must be positive and at most " + MAX_WINDOW);
+	}
+
+	/**
+	 * Discard all aggregates.
+	 */
+	public final void reset() {
+		brokers.clear();
+		worlds.clear();
+		players.clear();
+	}
+
+	/**
+	 * The rolling windows of a single key.<br>
+	 * Its last update time is claimed before every update, and swapped for {@link #RETIRED} when it is discarded, so that exactly one of the two wins.
+	 */
+	private static final class Aggregate {
+
+		private static final long RETIRED = Long.MIN_VALUE;
+
+		private final RollingWindow seconds = new RollingWindow(SECOND, 60), minutes = new RollingWindow(MINUTE, 60);
+		private final AtomicLong updated;
+
+		private Aggregate(long now) {
+			this.updated = new AtomicLong(now);
+		}
+
+		private boolean claim(long now) {
+			for (long updated = this.updated.get(); updated != RETIRED; updated = this.updated.get())
+				if (updated >= now || this.updated.compareAndSet(updated, now)) return true;
+			return false;
+		}
+
+		private boolean retire(long cutoff) {
+			long updated = this.updated.get();
+			return updated != RETIRED && updated < cutoff && this.updated.compareAndSet(updated, RETIRED);
+		}
+
+		private void add(long now, boolean sale, long volume, long value) {
+			seconds.add(now, sale, volume, value);
+			minutes.add(now, sale, volume, value);
+		}
+
+		private long[] sum(long now, long window, boolean sale) {
+			return (window <= seconds.span() ? seconds : minutes).sum(now, window, sale);
+		}
+
+	}
+
+}
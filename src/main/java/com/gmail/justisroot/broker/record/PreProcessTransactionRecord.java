@@ -30,10 +30,12 @@ import java.util.UUID;
  * A read-only wrapper for {@link TransactionRecordBuilder}.<br>
  * <br>
  * To be provided on transaction events.
+ * Listeners may cancel the transaction with a reason through {@link #cancel(String)}, which becomes the fail reason of the resulting record.
  */
 public abstract class PreProcessTransactionRecord implements Transaction<Object> {
 
 	private final TransactionRecordBuilder<?> builder;
+	private volatile String cancelReason;
 
 	PreProcessTransactionRecord(TransactionRecordBuilder<?> builder) {
 		this.builder = builder;
@@ -79,4 +81,37 @@ public abstract class PreProcessTransactionRecord implements Transaction<Object>
 		return builder.value();
 	}
 
+	/**
+	 * Cancel this transaction, providing the reason as the fail reason of its record.<br>
+	 * Only the first reason provided is kept, as listeners may be evaluated concurrently.
+	 *
+	 * @param reason the reason this transaction was cancelled
+	 * @throws IllegalArgumentException if the reason is null
+	 */
+	public final void cancel(String reason) {
+		if (reason == null) throw new IllegalArgumentException("No null arguments!");
+		if (cancelReason != null) return;
+		synchronized (this) {
+			if (cancelReason == null) cancelReason = reason;
+		}
+	}
+
+	/**
+	 * Get whether a listener has cancelled this transaction through {@link #cancel(String)}.
+	 *
+	 * @return true if this transaction has been cancelled with a reason
+	 */
+	public final boolean isCancelled() {
+		return cancelReason != null;
+	}
+
+	/**
+	 * Get the reason this transaction was cancelled, if cancelled through {@link #cancel(String)}.
+	 *
+	 * @return an Optional containing the reason this transaction was cancelled, empty if it wasn't cancelled with a reason
+	 */
+	public final Optional<String> cancelReason() {
+		return Optional.ofNullable(cancelReason);
+	}
+
 }
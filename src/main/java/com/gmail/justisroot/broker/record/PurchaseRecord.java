@@ -14,6 +14,8 @@ import java.util.UUID;
 import com.gmail.justisroot.broker.Broker;
 import com.gmail.justisroot.broker.BrokerInfo;
 import com.gmail.justisroot.broker.events.BrokerEventService;
+import com.gmail.justisroot.broker.metrics.BrokerMetrics;
+import com.gmail.justisroot.broker.metrics.FlightEvents;
 
 /**
  * The transaction record to return for purchases. Should always be incomplete when returned, to be completed by the caller.<br>
@@ -40,9 +42,14 @@ public class PurchaseRecord<T> extends TransactionRecord<T> implements Purchase<
 	 */
 	@Override
 	public boolean complete() {
-		if (super.complete()) BrokerEventService.current().createPurchaseEvent(info, this);
-		else return false;
-		return true;
+		Object flight = FlightEvents.beginComplete();
+		boolean completed = super.complete();
+		if (completed) {
+			BrokerMetrics.current().recordCompletion(this, false);
+			BrokerEventService.current().createPurchaseEvent(info, this);
+		}
+		FlightEvents.endComplete(flight, this, false, completed);
+		return completed;
 	}
 
 	/**
@@ -100,9 +107,12 @@ public class PurchaseRecord<T> extends TransactionRecord<T> implements Purchase<
 		 */
 		@Override
 		public PurchaseRecord<T> buildSuccess(Runnable onComplete) {
-			boolean cancelled = BrokerEventService.current().createPurchasePreProcessEvent(info, new PreProcessPurchaseRecord(this));
-			if (cancelled) return new PurchaseRecord<>(this, Optional.of("Purchase cancelled"));
-			return new PurchaseRecord<>(this, onComplete == null ? () -> {} : onComplete);
+			Object flight = FlightEvents.beginBuild();
+			PreProcessPurchaseRecord record = new PreProcessPurchaseRecord(this);
+			boolean cancelled = BrokerEventService.current().createPurchasePreProcessEvent(info, record);
+			PurchaseRecord<T> built = cancelled ? new PurchaseRecord<>(this, Optional.of(record.cancelReason().orElse("Purchase cancelled"))) : new PurchaseRecord<>(this, onComplete == null ? () -> {} : onComplete);
+			FlightEvents.endBuild(flight, info, false, built.failReason());
+			return built;
 		}
 
 		/**
@@ -14,6 +14,8 @@ import java.util.UUID;
 import com.gmail.justisroot.broker.Broker;
 import com.gmail.justisroot.broker.BrokerInfo;
 import com.gmail.justisroot.broker.events.BrokerEventService;
+import com.gmail.justisroot.broker.metrics.BrokerMetrics;
+import com.gmail.justisroot.broker.metrics.FlightEvents;
 
 /**
  * The transaction record to return for sales. Should always be incomplete when returned, to be completed by the caller.<br>
@@ -52,9 +54,14 @@ public class SaleRecord<T> extends TransactionRecord<T> implements Sale<T> {
 	 */
 	@Override
 	public boolean complete() {
-		if (super.complete()) BrokerEventService.current().createSaleEvent(info, this);
-		else return false;
-		return true;
+		Object flight = FlightEvents.beginComplete();
+		boolean completed = super.complete();
+		if (completed) {
+			BrokerMetrics.current().recordCompletion(this, true);
+			BrokerEventService.current().createSaleEvent(info, this);
+		}
+		FlightEvents.endComplete(flight, this, true, completed);
+		return completed;
 	}
 
 	/**
@@ -146,9 +153,12 @@ public class SaleRecord<T> extends TransactionRecord<T> implements Sale<T> {
 		 */
 		@Override
 		public SaleRecord<T> buildSuccess(Runnable onComplete) {
-			boolean cancelled = BrokerEventService.current().createSalePreProcessEvent(info, new PreProcessSaleRecord(this));
-			if (cancelled) return new SaleRecord<>(this, Optional.of("Sale cancelled"));
-			return new SaleRecord<>(this, onComplete == null ? () -> {} : onComplete);
+			Object flight = FlightEvents.beginBuild();
+			PreProcessSaleRecord record = new PreProcessSaleRecord(this);
+			boolean cancelled = BrokerEventService.current().createSalePreProcessEvent(info, record);
+			SaleRecord<T> built = cancelled ? new SaleRecord<>(this, Optional.of(record.cancelReason().orElse("Sale cancelled"))) : new SaleRecord<>(this, onComplete == null ? () -> {} : onComplete);
+			FlightEvents.endBuild(flight, info, true, built.failReason());
+			return built;
 		}
 
 		/**
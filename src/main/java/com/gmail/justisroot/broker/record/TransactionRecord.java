@@ -25,6 +25,7 @@ package com.gmail.justisroot.broker.record;
 import java.math.BigDecimal;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 import com.gmail.justisroot.broker.BrokerInfo;
 
@@ -37,10 +38,12 @@ import com.gmail.justisroot.broker.BrokerInfo;
 public abstract class TransactionRecord<T> implements Transaction<T> {
 
 	private Runnable onComplete;
+	private boolean completing;
 	private Optional<String> failReason;
 
 	final BrokerInfo info;
 
+	private final UUID id;
 	private final T object;
 	private final Optional<UUID> playerID, worldID;
 	private final int volume;
@@ -58,12 +61,45 @@ public abstract class TransactionRecord<T> implements Transaction<T> {
 	}
 
 	private TransactionRecord(TransactionRecordBuilder<T> builder) {
+		this.id = nextID();
 		this.info = builder.info;
 		this.object = builder.object;
 		this.volume = builder.volume;
 		this.value = builder.value;
 		this.playerID = builder.playerID;
-		this.worldID = builder.playerID;
+		this.worldID = builder.worldID;
+	}
+
+	/**
+	 * Generate a time-ordered, version 7 style UUID.<br>
+	 * The most significant 48 bits hold the current time in milliseconds since the epoch, the remaining bits are random.
+	 *
+	 * @return a new time-ordered UUID
+	 */
+	private static UUID nextID() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long most = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+		long least = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+		return new UUID(most, least);
+	}
+
+	/**
+	 * Get the unique ID of this transaction.<br>
+	 * IDs are time-ordered, so that sorting them sorts their records by creation time, to the millisecond.
+	 *
+	 * @return the unique ID of this transaction
+	 */
+	public final UUID id() {
+		return this.id;
+	}
+
+	/**
+	 * Get the BrokerInfo for the Broker that handled this transaction.
+	 *
+	 * @return the BrokerInfo for the Broker that handled this transaction
+	 */
+	public final BrokerInfo brokerInfo() {
+		return this.info;
 	}
 
 	/**
@@ -127,14 +163,30 @@ public abstract class TransactionRecord<T> implements Transaction<T> {
 	/**
 	 * Completes the Broker's end of the transaction and initiates the appropriate transaction event.<br>
 	 * <br>
-	 * To be run by the caller when the transaction has been completed. (i.e funds transferred, items moved, etc)
+	 * To be run by the caller when the transaction has been completed. (i.e funds transferred, items moved, etc)<br>
+	 * <br>
+	 * Safe to call repeatedly and from several threads, the completion only ever runs once.<br>
+	 * If the Broker's completion throws, the exception is propagated and the record may be completed again.
 	 *
-	 * @return true if the Broker's completion and the transaction event ran, false if it had already been run, or if the transaction was not a success
+	 * @return true if the Broker's completion and the transaction event ran, false if it had already been run, is being run, or if the transaction was not a success
 	 */
 	public boolean complete() {
-		if (!isSuccess() || onComplete == null) return false;
-		onComplete.run();
-		onComplete = null;
+		Runnable onComplete;
+		synchronized (this) {
+			if (!isSuccess() || this.onComplete == null || completing) return false;
+			onComplete = this.onComplete;
+			completing = true;
+		}
+		boolean completed = false;
+		try {
+			onComplete.run();
+			completed = true;
+		} finally {
+			synchronized (this) {
+				if (completed) this.onComplete = null;
+				completing = false;
+			}
+		}
 		return true;
 	}
 
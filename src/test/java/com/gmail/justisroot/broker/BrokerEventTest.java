@@ -11,8 +11,13 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -24,7 +29,15 @@ import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.TestInstance.Lifecycle;
 import org.junit.jupiter.api.TestMethodOrder;
 
+import com.gmail.justisroot.broker.events.BatchSettings;
+import com.gmail.justisroot.broker.events.BrokerEventService;
+import com.gmail.justisroot.broker.events.EventFilter;
+import com.gmail.justisroot.broker.events.EventPriority;
 import com.gmail.justisroot.broker.events.MockEvent;
+import com.gmail.justisroot.broker.events.SaleBatchHandler;
+import com.gmail.justisroot.broker.events.SaleEventHandler;
+import com.gmail.justisroot.broker.events.SalePreProcessEventHandler;
+import com.gmail.justisroot.broker.record.SaleRecord;
 
 @TestInstance(Lifecycle.PER_CLASS)
 @TestMethodOrder(OrderAnnotation.class)
@@ -118,5 +131,165 @@ class BrokerEventTest {
 		assertTrue(event.saleFired, "The sale was fired without being cancelled, but the transaction event was not marked as fired");
 	}
 
+	@Test
+	@Order(4)
+	@DisplayName("Test multiple listeners by priority and cancellation")
+	void multipleListenersTest() {
+		BrokerEventService service = BrokerEventService.current();
+		List<String> ran = new ArrayList<>();
+		SaleEventHandler high = (info, record) -> ran.add("high"), low = (info, record) -> ran.add("low");
+		SalePreProcessEventHandler veto = (info, record) -> true, skipped = (info, record) -> {
+			ran.add("skipped");
+			return false;
+		};
+		service.addSaleListener(EventPriority.HIGH, high);
+		service.addSaleListener(EventPriority.LOW, low);
+		service.addSalePreProcessListener(EventPriority.LOWEST, false, veto);
+		service.addSalePreProcessListener(EventPriority.HIGHEST, true, skipped);
+		try {
+			event.cancelled = false;
+			SaleMediator<String> mediator = api.forSale(UUID.randomUUID(), UUID.randomUUID(), "1").get();
+			assertTrue(!mediator.sell().isSuccess(), "A sale cancelled by one of several listeners was not cancelled");
+			assertTrue(ran.isEmpty(), "A listener ignoring cancelled sales ran for a cancelled sale");
+			service.removeSalePreProcessListener(veto);
+			event.saleFired = false;
+			mediator.sell().complete();
+			assertTrue(ran.equals(List.of("skipped", "low", "high")), "Listeners ran in the order " + ran + " rather than by priority");
+			assertTrue(event.saleFired, "The assigned sale handler did not run alongside the added listeners");
+		} finally {
+			service.removeSaleListener(high);
+			service.removeSaleListener(low);
+			service.removeSalePreProcessListener(veto);
+			service.removeSalePreProcessListener(skipped);
+		}
+	}
+
+	@Test
+	@Order(5)
+	@DisplayName("Test batched sale delivery")
+	void batchListenerTest() {
+		BrokerEventService service = BrokerEventService.current();
+		List<List<SaleRecord<?>>> batches = new ArrayList<>();
+		SaleBatchHandler sized = batches::add, ticked = batches::add;
+		service.addSaleBatchListener(new BatchSettings().setMaxSize(3).setMaxDelay(60000), sized);
+		try {
+			event.cancelled = false;
+			SaleMediator<String> mediator = api.forSale(UUID.randomUUID(), UUID.randomUUID(), "1").get();
+			for (int i = 0; i < 7; i++) mediator.sell().complete();
+			assertTrue(batches.size() == 2 && batches.get(0).size() == 3 && batches.get(1).size() == 3, "Sales were not delivered in batches of the maximum size");
+			assertTrue(batches.get(0).get(0).brokerInfo().id().equals(IntegerBroker.ID), "A batched sale did not carry the BrokerInfo of its Broker");
+			service.removeSaleBatchListener(sized);
+			assertTrue(batches.size() == 3 && batches.get(2).size() == 1, "Buffered sales were not delivered when their listener was removed");
+			batches.clear();
+			service.addSaleBatchListener(new BatchSettings().setFlushOnTick(true), ticked);
+			mediator.sell().complete();
+			assertTrue(batches.isEmpty(), "A batch was delivered before the server tick");
+			service.tick();
+			assertTrue(batches.size() == 1 && batches.get(0).size() == 1, "A batch was not delivered on the server tick");
+		} finally {
+			service.removeSaleBatchListener(sized);
+			service.removeSaleBatchListener(ticked);
+		}
+	}
+
+	@Test
+	@Order(6)
+	@DisplayName("Test listeners scoped by filters")
+	void filteredListenersTest() {
+		BrokerEventService service = BrokerEventService.current();
+		List<String> ran = new ArrayList<>();
+		SaleEventHandler integer = (info, record) -> ran.add("integer"), alphanumeric = (info, record) -> ran.add("alphanumeric"), string = (info, record) -> ran.add("string"), number = (info, record) -> ran.add("number");
+		service.addSaleListener(EventPriority.LOWEST, new EventFilter().setBrokerID(IntegerBroker.ID), integer);
+		service.addSaleListener(EventPriority.LOW, new EventFilter().setBrokerID(AlphanumericBroker.ID), alphanumeric);
+		service.addSaleListener(EventPriority.NORMAL, new EventFilter().setType(CharSequence.class), string);
+		service.addSaleListener(EventPriority.HIGH, new EventFilter().setType(Number.class), number);
+		try {
+			event.cancelled = false;
+			api.forSale(UUID.randomUUID(), UUID.randomUUID(), "1").get().sell().complete();
+			assertTrue(ran.equals(List.of("integer", "string")), "Filtered listeners " + ran + " ran rather than only those matching the Broker");
+			ran.clear();
+			api.unregister(intBroker);
+			api.register(anBroker);
+			api.forSale(UUID.randomUUID(), UUID.randomUUID(), "1").get().sell().complete();
+			assertTrue(ran.equals(List.of("alphanumeric", "string")), "Filtered listeners " + ran + " ran for a Broker holding the index of an unregistered one");
+		} finally {
+			api.unregister(anBroker);
+			api.register(intBroker);
+			service.removeSaleListener(integer);
+			service.removeSaleListener(alphanumeric);
+			service.removeSaleListener(string);
+			service.removeSaleListener(number);
+		}
+	}
+
+	@Test
+	@Order(7)
+	@DisplayName("Test concurrent vetoes and cancel reasons")
+	void vetoTest() {
+		BrokerEventService service = BrokerEventService.current();
+		SalePreProcessEventHandler allow = (info, record) -> false, quota = (info, record) -> {
+			record.cancel("Quota exceeded");
+			return false;
+		};
+		service.addSaleVeto(allow);
+		service.addSaleVeto(quota);
+		try {
+			event.cancelled = false;
+			SaleMediator<String> mediator = api.forSale(UUID.randomUUID(), UUID.randomUUID(), "1").get();
+			SaleRecord<String> record = mediator.sell();
+			assertTrue(!record.isSuccess(), "A sale vetoed by one of several vetoes was not cancelled");
+			assertTrue(record.failReason().get().equals("Quota exceeded"), "The reason of a veto was not the fail reason of its record");
+			service.removeSaleVeto(quota);
+			assertTrue(mediator.sell().isSuccess(), "A sale was cancelled when none of its vetoes cancelled it");
+		} finally {
+			service.removeSaleVeto(allow);
+			service.removeSaleVeto(quota);
+		}
+	}
+
+	@Test
+	@Order(8)
+	@DisplayName("Test vetoes still running once a sale is cancelled are waited for")
+	void runningVetoTest() {
+		BrokerEventService service = BrokerEventService.current();
+		Thread caller = Thread.currentThread();
+		CountDownLatch started = new CountDownLatch(1);
+		AtomicInteger running = new AtomicInteger();
+		SalePreProcessEventHandler slow = (info, record) -> {
+			try {
+				if (Thread.currentThread() == caller) {
+					started.await(1, TimeUnit.SECONDS);
+					return false;
+				}
+				running.incrementAndGet();
+				started.countDown();
+				Thread.sleep(200);
+				running.decrementAndGet();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return false;
+		};
+		SalePreProcessEventHandler slower = (info, record) -> slow.run(info, record), quick = (info, record) -> {
+			try {
+				started.await(1, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return true;
+		};
+		service.addSaleVeto(slow);
+		service.addSaleVeto(slower);
+		service.addSaleVeto(quick);
+		try {
+			event.cancelled = false;
+			SaleRecord<String> record = api.forSale(UUID.randomUUID(), UUID.randomUUID(), "1").get().sell();
+			assertTrue(!record.isSuccess() && running.get() == 0, "A sale was passed on while one of its vetoes was still running");
+		} finally {
+			service.removeSaleVeto(slow);
+			service.removeSaleVeto(slower);
+			service.removeSaleVeto(quick);
+		}
+	}
 
 }
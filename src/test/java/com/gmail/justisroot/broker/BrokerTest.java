@@ -10,10 +10,36 @@ package com.gmail.justisroot.broker;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.math.BigDecimal;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -25,6 +51,23 @@ import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.TestInstance.Lifecycle;
 import org.junit.jupiter.api.TestMethodOrder;
 
+import com.gmail.justisroot.broker.events.BrokerEventHandler;
+import com.gmail.justisroot.broker.events.BrokerEventService;
+import com.gmail.justisroot.broker.events.EventPriority;
+import com.gmail.justisroot.broker.events.PurchasePreProcessEventHandler;
+import com.gmail.justisroot.broker.management.BrokerRegistryMXBean;
+import com.gmail.justisroot.broker.management.BrokerStatisticsMXBean;
+import com.gmail.justisroot.broker.metrics.BrokerMethod;
+import com.gmail.justisroot.broker.metrics.BrokerMetrics;
+import com.gmail.justisroot.broker.metrics.LatencySnapshot;
+import com.gmail.justisroot.broker.metrics.LockHolder;
+import com.gmail.justisroot.broker.metrics.LockMetrics;
+import com.gmail.justisroot.broker.metrics.LockSite;
+import com.gmail.justisroot.broker.metrics.RoutingMetrics;
+import com.gmail.justisroot.broker.metrics.RoutingSnapshot;
+import com.gmail.justisroot.broker.record.PurchaseRecord;
+import com.gmail.justisroot.broker.record.SaleRecord;
+
 @TestInstance(Lifecycle.PER_CLASS)
 @TestMethodOrder(OrderAnnotation.class)
 class BrokerTest {
@@ -139,4 +182,409 @@ class BrokerTest {
 		api.unregister(AlphanumericBroker.ID);
 	}
 
+	@Test
+	@Order(8)
+	@DisplayName("Verify repeated purchases with the same idempotency key return the original record")
+	void idempotencyTest() {
+		UUID player = UUID.randomUUID(), world = UUID.randomUUID();
+		PurchaseMediator<String> mediator = api.forPurchase(player, world, "1").get();
+		assertTrue(mediator.getBrokerInfo().id().equals(IntegerBroker.ID), "IntegerBroker was not provided for an Integer value");
+		UUID key = UUID.randomUUID();
+		PurchaseRecord<String> record = mediator.buy(1, key);
+		assertTrue(record.isSuccess(), "IntegerBroker failed a purchase: " + record.failReason().orElse(""));
+		assertTrue(record == mediator.buy(1, key), "A repeated purchase with the same key did not return the original record");
+		assertTrue(record != mediator.buy(1, UUID.randomUUID()), "A purchase with a new key returned an existing record");
+		assertTrue(mediator.buy(1, key).id().equals(record.id()), "The transaction ID changed between repeated purchases");
+		assertTrue(api.forPurchase(UUID.randomUUID(), world, "1").get().buy(1, key) != record, "A purchase by another player with the same key returned the original record");
+		PurchaseRecord<String> other = api.forPurchase(player, world, "NotAN").get().buy(1, key);
+		assertTrue(other != record && other.brokerInfo().id().equals(NaNBroker.ID), "A purchase from another Broker with the same key returned the original record");
+		assertTrue(record.complete(), "The first completion of a successful record did not run");
+		assertTrue(!record.complete(), "The completion of a record ran twice");
+		AtomicInteger attempts = new AtomicInteger();
+		SaleRecord<String> failing = SaleRecord.start(intBroker, "1", Optional.of(player), Optional.of(world)).setValue(BigDecimal.ONE).buildSuccess(() -> {
+			if (attempts.incrementAndGet() == 1) throw new IllegalStateException("Expected by idempotencyTest");
+		});
+		try {
+			failing.complete();
+			assertTrue(false, "The exception thrown by a completion was not propagated");
+		} catch (IllegalStateException e) {
+			assertTrue(failing.complete() && attempts.get() == 2, "A record could not be completed again after its completion threw");
+		}
+		assertTrue(!failing.complete() && attempts.get() == 2, "The completion of a record ran again after it succeeded");
+		api.unregister(intBroker);
+		api.register(intBroker);
+		assertTrue(api.forPurchase(player, world, "1").get().buy(1, key) != record, "The keys of an unregistered Broker were kept");
+	}
+
+	@Test
+	@Order(9)
+	@DisplayName("Verify configuration changes are written behind and atomically replace the file")
+	void writeBehindTest() throws IOException {
+		File subfolder = new File(folder, "write-behind");
+		Config behind = new Config(subfolder);
+		try {
+			File file = new File(subfolder, "config.hmff");
+			assertTrue(!file.exists(), "The configuration was written before its changes were flushed");
+			behind.ensureEntry(anBroker);
+			behind.flush();
+			assertTrue(Files.readString(file.toPath()).contains(AlphanumericBroker.ID), "A flushed configuration entry was not written");
+			assertTrue(!new File(subfolder, "config.hmff.tmp").exists(), "The staging file was left behind after a flush");
+			behind.setPriority(anBroker, 20);
+			behind.close();
+			assertTrue(Files.readString(file.toPath()).contains("20"), "A pending change was not written on close");
+		} finally {
+			behind.delete();
+			subfolder.delete();
+		}
+	}
+
+	@Test
+	@Order(10)
+	@DisplayName("Verify pending changes are merged with external edits rather than overwriting them")
+	void mergeTest() {
+		File subfolder = new File(folder, "merge");
+		Config ours = new Config(subfolder);
+		Config theirs = null;
+		try {
+			ours.ensureEntry(anBroker);
+			ours.flush();
+			theirs = new Config(subfolder);
+			theirs.setPriority(IntegerBroker.ID, 42);
+			theirs.flush();
+			ours.setPriority(NaNBroker.ID, 7);
+			ours.flush();
+			assertTrue(!ours.isOwnWrite(), "A write that merged an external edit was considered the configuration's own");
+			Set<String> changed = ours.reload();
+			assertTrue(changed.contains(IntegerBroker.ID) && !changed.contains(NaNBroker.ID), "Reloading after a merge did not pick up the external edit alone");
+			ours.setPriority(NaNBroker.ID, 8);
+			theirs.setPriority(IntegerBroker.ID, 43);
+			theirs.flush();
+			assertTrue(ours.reload().equals(Set.of(IntegerBroker.ID)), "Reloading did not pick up the external edit alone");
+			ConfigState state = ours.state();
+			assertTrue(state.priority(NaNBroker.ID) == 8 && state.priority(IntegerBroker.ID) == 43, "A reload lost either the pending change or the external edit");
+			ours.flush();
+			theirs.reload();
+			state = theirs.state();
+			assertTrue(state.priority(NaNBroker.ID) == 8 && state.priority(IntegerBroker.ID) == 43 && state.priority(AlphanumericBroker.ID) != null, "The merged file lost a change");
+		} finally {
+			if (theirs != null) theirs.close();
+			ours.close();
+			ours.delete();
+			subfolder.delete();
+		}
+	}
+
+	@Test
+	@Order(11)
+	@DisplayName("Verify reloading an unchanged configuration leaves registered Brokers untouched")
+	void reloadTest() {
+		AtomicInteger events = new AtomicInteger();
+		BrokerEventHandler counter = info -> events.incrementAndGet();
+		BrokerEventService service = BrokerEventService.current();
+		service.addRegistrationListener(EventPriority.MONITOR, counter);
+		service.addUnregistrationListener(EventPriority.MONITOR, counter);
+		try {
+			config.setGenerous(IntegerBroker.ID, true);
+			api.reload();
+			assertTrue(events.get() == 0, events.get() + " registration events fired for a reload that changed nothing");
+			assertTrue(api.isRegistered(IntegerBroker.ID) && api.isRegistered(NaNBroker.ID), "A Broker was dropped by a reload that changed nothing");
+			assertTrue(config.isGenerous(intBroker), "A reload reverted a change that was not yet written");
+		} finally {
+			config.setGenerous(IntegerBroker.ID, false);
+			service.removeRegistrationListener(counter);
+			service.removeUnregistrationListener(counter);
+		}
+	}
+
+	@Test
+	@Order(12)
+	@DisplayName("Verify bulk registration registers every valid Broker and fires their events afterwards")
+	void registerAllTest() {
+		List<String> registered = new ArrayList<>();
+		BrokerEventHandler listener = info -> {
+			assertTrue(api.isRegistered(AlphanumericBroker.ID) && api.isRegistered(BigDecimalBroker.ID), "A registration event fired before every Broker was registered");
+			registered.add(info.id());
+		};
+		BrokerEventService.current().addRegistrationListener(EventPriority.MONITOR, listener);
+		try {
+			int count = api.registerAll(Arrays.asList(anBroker, null, bigDBroker));
+			assertTrue(count == 2, count + " Brokers were registered in bulk when 2 were expected");
+			assertTrue(registered.equals(List.of(AlphanumericBroker.ID, BigDecimalBroker.ID)), "Registration events " + registered + " did not fire for each Broker in order");
+		} finally {
+			BrokerEventService.current().removeRegistrationListener(listener);
+			api.unregister(anBroker);
+			api.unregister(bigDBroker);
+		}
+	}
+
+	@Test
+	@Order(13)
+	@DisplayName("Verify BrokerInfo is shared while registered and not retained once unregistered")
+	void brokerInfoTest() {
+		assertTrue(BrokerInfo.get(intBroker) == BrokerInfo.get(intBroker), "A registered Broker was given a new BrokerInfo instance");
+		BrokerInfo unregistered = BrokerInfo.get(anBroker);
+		assertTrue(unregistered != BrokerInfo.get(anBroker), "The BrokerInfo of an unregistered Broker was retained");
+		assertTrue(unregistered.equals(BrokerInfo.get(anBroker)), "BrokerInfo instances of the same Broker were not equal");
+	}
+
+	@Test
+	@Order(14)
+	@DisplayName("Verify registered Brokers hold distinct dense indices, recycled once unregistered")
+	void indexTest() {
+		int integer = BrokerInfo.get(intBroker).index(), nan = BrokerInfo.get(nanBroker).index();
+		assertTrue(integer >= 0 && nan >= 0 && integer != nan, "Registered Brokers were not given distinct indices");
+		assertTrue(BrokerInfo.get(anBroker).index() == -1, "An unregistered Broker was given an index");
+		assertTrue(api.indexBound() > Math.max(integer, nan), "The index bound did not cover every assigned index");
+		api.unregister(nanBroker);
+		int bound = api.indexBound();
+		api.register(anBroker);
+		assertTrue(BrokerInfo.get(anBroker).index() <= nan && api.indexBound() == bound, "The index of an unregistered Broker was not recycled");
+		api.unregister(anBroker);
+		api.register(nanBroker);
+	}
+
+	@Test
+	@Order(15)
+	@DisplayName("Verify calls into Brokers are measured per Broker and method")
+	void metricsTest() {
+		BrokerInfo info = BrokerInfo.get(intBroker);
+		BrokerMetrics.current().snapshotAndReset(info);
+		PurchaseMediator<String> mediator = api.forPurchase(UUID.randomUUID(), UUID.randomUUID(), "1").get();
+		mediator.buy(2);
+		mediator.getBuyPrice(2);
+		Map<BrokerMethod, LatencySnapshot> snapshot = BrokerMetrics.current().snapshot(info);
+		assertTrue(snapshot.get(BrokerMethod.HANDLES_PURCHASES).count() == 1, "The routing call into the Broker was not measured");
+		assertTrue(snapshot.get(BrokerMethod.BUY).count() == 1 && snapshot.get(BrokerMethod.GET_BUY_PRICE).count() == 1, "The mediator calls into the Broker were not measured");
+		assertTrue(snapshot.get(BrokerMethod.SELL).count() == 0, "An uncalled method was measured");
+		PurchaseMediator<String> stale = api.forPurchase(UUID.randomUUID(), UUID.randomUUID(), "NotAN").get();
+		api.unregister(nanBroker);
+		api.register(anBroker);
+		try {
+			BrokerInfo reused = BrokerInfo.get(anBroker);
+			assertTrue(reused.index() == stale.getBrokerInfo().index(), "The index of the unregistered Broker was not recycled");
+			stale.buy(1).complete();
+			assertTrue(BrokerMetrics.current().snapshot(reused, BrokerMethod.BUY).count() == 0, "A call into an unregistered Broker was measured for the Broker reusing its index");
+			assertTrue(BrokerMetrics.current().completions(reused, false) == 0, "A purchase of an unregistered Broker was counted for the Broker reusing its index");
+		} finally {
+			api.unregister(anBroker);
+			api.register(nanBroker);
+		}
+	}
+
+	@Test
+	@Order(16)
+	@DisplayName("Verify routing calls are counted per object type")
+	void routingMetricsTest() {
+		RoutingMetrics routing = BrokerMetrics.current().routing();
+		routing.reset();
+		api.forPurchase(UUID.randomUUID(), UUID.randomUUID(), "1");
+		api.forPurchase(UUID.randomUUID(), UUID.randomUUID(), "NotAN");
+		api.forPurchase(UUID.randomUUID(), UUID.randomUUID(), Integer.valueOf(1));
+		RoutingSnapshot strings = routing.purchases().get(String.class), integers = routing.purchases().get(Integer.class);
+		assertTrue(strings.calls() == 2 && strings.hits() == 2, "Routing calls for Strings were not counted as hits");
+		assertTrue(strings.hitsAtDepth(0) + strings.hitsAtDepth(1) + strings.hitsAtDepth(2) == 2, "The depth of chosen Brokers was not counted");
+		assertTrue(integers.calls() == 1 && integers.misses() == 1, "A routing call for a type without Brokers was not counted as a miss");
+		assertTrue(routing.sales().isEmpty(), "Purchase routing was counted as sale routing");
+	}
+
+	@Test
+	@Order(17)
+	@DisplayName("Verify the registry and statistics are exposed through JMX")
+	void managementTest() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName registry = new ObjectName(BrokerRegistryMXBean.NAME), statistics = new ObjectName(BrokerStatisticsMXBean.NAME);
+		api.setManagement(true);
+		try {
+			String id = intBroker.getId();
+			int priority = config.getPriority(intBroker);
+			assertTrue(priorityOf(server, registry, id) == priority, "The registered Broker was not exposed with its effective priority");
+			server.invoke(registry, "setPriority", new Object[] { id, priority + 1 }, new String[] { String.class.getName(), int.class.getName() });
+			assertTrue(priorityOf(server, registry, id) == priority + 1, "The priority change was not applied to the registry");
+			assertTrue(config.getPriority(intBroker) == priority + 1, "The priority change was not saved to the configuration");
+			PurchaseRecord<String> record = api.forPurchase(UUID.randomUUID(), UUID.randomUUID(), "1").get().buy();
+			long before = completedPurchases(server, statistics, record.brokerInfo().id());
+			record.complete();
+			assertTrue(completedPurchases(server, statistics, record.brokerInfo().id()) == before + 1, "The completed purchase was not exposed");
+		} finally {
+			api.setManagement(false);
+		}
+		assertTrue(!server.isRegistered(registry) && !server.isRegistered(statistics), "The MBeans were not unregistered");
+	}
+
+	private static long completedPurchases(MBeanServer server, ObjectName statistics, String id) throws JMException {
+		for (CompositeData throughput : (CompositeData[]) server.getAttribute(statistics, "Throughput")) {
+			if (id.equals(throughput.get("brokerID"))) return (Long) throughput.get("completedPurchases");
+		}
+		return -1;
+	}
+
+	private static int priorityOf(MBeanServer server, ObjectName registry, String id) throws JMException {
+		for (CompositeData broker : (CompositeData[]) server.getAttribute(registry, "Brokers")) {
+			if (id.equals(broker.get("id"))) return (Integer) broker.get("priority");
+		}
+		return Integer.MIN_VALUE;
+	}
+
+	@Test
+	@Order(18)
+	@DisplayName("Verify stuck calls are reported with samples of their stack")
+	void watchdogTest() throws InterruptedException {
+		List<LogRecord> records = Collections.synchronizedList(new ArrayList<>());
+		Handler handler = new Handler() {
+			@Override
+			public void publish(LogRecord record) {
+				records.add(record);
+			}
+
+			@Override
+			public void flush() {}
+
+			@Override
+			public void close() {}
+		};
+		CallWatchdog.LOGGER.addHandler(handler);
+		api.setWatchdog(Duration.ofMillis(50));
+		try {
+			BrokerInfo info = BrokerInfo.get(intBroker);
+			long start = Instrumentation.begin(info, BrokerMethod.BUY);
+			try {
+				Thread.sleep(300);
+			} finally {
+				Instrumentation.end(info, BrokerMethod.BUY, start);
+			}
+			Thread.sleep(100);
+		} finally {
+			api.setWatchdog(null);
+			CallWatchdog.LOGGER.removeHandler(handler);
+		}
+		long samples;
+		synchronized (records) {
+			samples = records.stream().filter(record -> record.getLevel() == Level.WARNING && record.getMessage().contains(intBroker.getId()) && record.getThrown() != null
+					&& Arrays.stream(record.getThrown().getStackTrace()).anyMatch(frame -> frame.getMethodName().equals("watchdogTest"))).count();
+		}
+		assertTrue(samples >= 2, "The stuck call was sampled " + samples + " times");
+		assertTrue(records.stream().anyMatch(record -> record.getLevel() == Level.INFO && record.getMessage().contains("returned")), "The return of the stuck call was not reported");
+		assertTrue(CallWatchdog.current() == null, "The watchdog was not stopped");
+	}
+
+	@Test
+	@Order(19)
+	@DisplayName("Verify waits for and holds of the registry lock are measured")
+	void lockContentionTest() throws InterruptedException {
+		LockMetrics locks = BrokerMetrics.current().locks();
+		locks.reset();
+		CountDownLatch held = new CountDownLatch(1);
+		BrokerEventHandler listener = info -> {
+			held.countDown();
+			try {
+				Thread.sleep(200);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+		BrokerEventService.current().addRegistrationListener(EventPriority.MONITOR, listener);
+		Thread registrar = new Thread(() -> api.register(anBroker), "Registrar");
+		try {
+			registrar.start();
+			assertTrue(held.await(5, TimeUnit.SECONDS), "The registration did not take place");
+			Optional<LockHolder> holder = locks.holder();
+			assertTrue(holder.isPresent() && holder.get().threadName().equals("Registrar") && holder.get().site() == LockSite.REGISTER, "The holder of the lock " + holder + " was not identified");
+			api.forPurchase(UUID.randomUUID(), UUID.randomUUID(), "1");
+			registrar.join();
+		} finally {
+			BrokerEventService.current().removeRegistrationListener(listener);
+			api.unregister(anBroker);
+		}
+		LatencySnapshot waits = locks.waits().get(LockSite.FOR_PURCHASE), holds = locks.holds().get(LockSite.REGISTER);
+		assertTrue(locks.contended(LockSite.FOR_PURCHASE) == 1 && waits.max() >= TimeUnit.MILLISECONDS.toNanos(50), "The wait for the lock " + waits + " was not measured");
+		assertTrue(holds.count() == 1 && holds.max() >= TimeUnit.MILLISECONDS.toNanos(150), "The hold of the lock " + holds + " was not measured");
+		assertTrue(locks.longestHold().get().site() == LockSite.REGISTER, "The longest hold of the lock was not attributed to the registration");
+		assertTrue(locks.holder().isEmpty(), "The lock was reported held once released");
+	}
+
+	@Test
+	@Order(20)
+	@DisplayName("Verify external edits are debounced and reloaded, while the configuration's own writes are ignored")
+	void hotReloadTest() throws IOException, InterruptedException {
+		File subfolder = Files.createTempDirectory("hot-reload").toFile();
+		Config ours = new Config(subfolder), theirs = null;
+		AtomicInteger reloads = new AtomicInteger();
+		ours.ensureEntry(intBroker);
+		ours.flush();
+		ConfigWatcher watcher = new ConfigWatcher(ours, () -> {
+			reloads.incrementAndGet();
+			ours.reload();
+		});
+		try {
+			ours.setPriority(IntegerBroker.ID, 30);
+			ours.flush();
+			Thread.sleep(ConfigWatcher.QUIET_PERIOD * 3);
+			assertTrue(reloads.get() == 0, "The configuration's own write was reloaded");
+			theirs = new Config(subfolder);
+			for (int priority = 1; priority <= 5; priority++) {
+				theirs.setPriority(IntegerBroker.ID, priority);
+				theirs.flush();
+				Thread.sleep(ConfigWatcher.QUIET_PERIOD / 5);
+			}
+			assertTrue(reloads.get() == 0, "A burst of edits was reloaded before it settled");
+			long deadline = System.currentTimeMillis() + 20000;
+			while (reloads.get() == 0 && System.currentTimeMillis() < deadline) Thread.sleep(50);
+			Thread.sleep(ConfigWatcher.QUIET_PERIOD * 2);
+			assertTrue(reloads.get() == 1, reloads.get() + " reloads ran for a single burst of edits");
+			assertTrue(ours.state().priority(IntegerBroker.ID) == 5, "The external edit was not applied by the reload");
+			watcher.close();
+			theirs.setPriority(IntegerBroker.ID, 6);
+			theirs.flush();
+			Thread.sleep(ConfigWatcher.QUIET_PERIOD * 2);
+			assertTrue(reloads.get() == 1, "An edit was reloaded after the watcher was closed");
+		} finally {
+			watcher.close();
+			if (theirs != null) theirs.close();
+			ours.close();
+			ours.delete();
+			subfolder.delete();
+		}
+	}
+
+	@Test
+	@Order(21)
+	@DisplayName("Verify routing, record builds and completions are emitted as Flight Recorder events")
+	void flightEventsTest() throws IOException {
+		PurchasePreProcessEventHandler canceller = (info, record) -> {
+			record.cancel("Cancelled by flightEventsTest");
+			return true;
+		};
+		Path dump = Files.createTempFile("broker", ".jfr");
+		PurchaseRecord<String> completed;
+		try (Recording recording = new Recording()) {
+			for (String event : new String[] { "Routing", "BrokerCall", "RecordBuild", "RecordComplete" }) recording.enable("com.gmail.justisroot.broker." + event).withoutThreshold();
+			recording.start();
+			PurchaseMediator<String> mediator = api.forPurchase(UUID.randomUUID(), UUID.randomUUID(), "1").get();
+			completed = mediator.buy(2);
+			completed.complete();
+			BrokerEventService.current().addPurchasePreProcessListener(EventPriority.NORMAL, false, canceller);
+			try {
+				mediator.buy(1);
+			} finally {
+				BrokerEventService.current().removePurchasePreProcessListener(canceller);
+			}
+			recording.stop();
+			recording.dump(dump);
+		}
+		List<RecordedEvent> events;
+		try {
+			events = RecordingFile.readAllEvents(dump);
+		} finally {
+			Files.delete(dump);
+		}
+		assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals("com.gmail.justisroot.broker.Routing") && IntegerBroker.ID.equals(event.getString("brokerID"))
+				&& event.getString("objectType").equals(String.class.getName()) && !event.getBoolean("sale") && event.getInt("depth") == 0), "The routing event was not committed");
+		assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals("com.gmail.justisroot.broker.BrokerCall") && event.getString("brokerID").equals(IntegerBroker.ID)
+				&& event.getString("method").equals(BrokerMethod.BUY.name()) && event.getLong("latency") > 0), "The Broker call event was not committed");
+		assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals("com.gmail.justisroot.broker.RecordBuild") && event.getBoolean("cancelled")
+				&& "Cancelled by flightEventsTest".equals(event.getString("failReason"))), "The build event of the cancelled record was not committed");
+		assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals("com.gmail.justisroot.broker.RecordComplete") && event.getBoolean("completed")
+				&& event.getString("transactionID").equals(completed.id().toString()) && event.getInt("volume") == 2), "The completion event was not committed");
+	}
+
 }
@@ -0,0 +1,155 @@
+/*
+ *
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * This program is distributed under the terms of the GNU Lesser General Public License
+ *
+ */
+package com.gmail.justisroot.broker;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+@TestInstance(Lifecycle.PER_CLASS)
+class RegistryStressTest {
+
+	private static final int ROUTERS = 16;
+	private static final long DURATION = TimeUnit.SECONDS.toMillis(2);
+
+	private File folder;
+	private Config config;
+	private BrokerAPI api;
+
+	private final IntegerBroker intBroker = new IntegerBroker();
+	private final StressBroker stressBroker = new StressBroker();
+
+	@BeforeAll
+	void setup() throws IOException {
+		folder = Files.createTempDirectory("brokerapi-stress").toFile();
+		config = new Config(folder);
+		api = new BrokerAPI(config);
+		api.register(intBroker);
+	}
+
+	@AfterAll
+	void cleanup() {
+		api.shutdown();
+		config.delete();
+		folder.delete();
+	}
+
+	/**
+	 * The mutations applied in turn, and whether the StressBroker is chosen over the IntegerBroker once each has completed.<br>
+	 * Reloads must not change the outcome, as the configuration is only ever changed through BrokerAPI.
+	 */
+	private void mutate(long step) {
+		switch ((int) (step % 6)) {
+		case 1:
+			api.register(stressBroker);
+			break;
+		case 3:
+			api.setPriority(StressBroker.ID, 0);
+			break;
+		case 5:
+			api.setPriority(StressBroker.ID, 20);
+			break;
+		case 0:
+			api.unregister(stressBroker);
+			break;
+		default:
+			api.reload();
+		}
+	}
+
+	private static String expected(long step) {
+		long phase = step % 6;
+		return phase == 1 || phase == 2 || phase == 5 ? StressBroker.ID : IntegerBroker.ID;
+	}
+
+	@Test
+	@DisplayName("Verify routing stays linearizable while Brokers are registered, reprioritized, reloaded and unregistered concurrently")
+	void stressTest() throws InterruptedException {
+		AtomicLong started = new AtomicLong(), completed = new AtomicLong(), checked = new AtomicLong(), routed = new AtomicLong();
+		AtomicBoolean running = new AtomicBoolean(true);
+		Queue<String> violations = new ConcurrentLinkedQueue<>();
+		BrokerInfo info = BrokerInfo.get(intBroker);
+		Thread mutator = new Thread(() -> {
+			while (running.get()) {
+				long step = started.incrementAndGet();
+				mutate(step);
+				completed.set(step);
+				LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(200));
+			}
+		}, "Mutator");
+		List<Thread> routers = new ArrayList<>();
+		for (int i = 0; i < ROUTERS; i++) {
+			routers.add(new Thread(() -> {
+				while (running.get()) {
+					long done = completed.get(), before = started.get();
+					Optional<PurchaseMediator<String>> mediator = api.forPurchase(null, null, "1");
+					long after = started.get();
+					routed.incrementAndGet();
+					if (mediator.isEmpty()) {
+						violations.add("No Broker was found while the IntegerBroker was registered");
+						continue;
+					}
+					BrokerInfo chosen = mediator.get().getBrokerInfo();
+					if (chosen.index() < 0) violations.add("A Broker was routed to without holding an index");
+					if (!chosen.id().equals(IntegerBroker.ID) && !chosen.id().equals(StressBroker.ID)) violations.add("An unknown Broker " + chosen.id() + " was routed to");
+					if (done == before && before == after) {
+						checked.incrementAndGet();
+						if (!chosen.id().equals(expected(done))) violations.add("After step " + done + ", " + chosen.id() + " was routed to instead of " + expected(done));
+					}
+				}
+			}, "Router-" + i));
+		}
+		mutator.start();
+		routers.forEach(Thread::start);
+		Thread.sleep(DURATION);
+		running.set(false);
+		mutator.join();
+		for (Thread router : routers) router.join();
+		assertTrue(violations.isEmpty(), violations.size() + " violations, first: " + violations.peek());
+		assertTrue(checked.get() > 0, "No routing call ran between mutations, of " + routed.get());
+		assertTrue(started.get() >= 6, "The mutator only completed " + started.get() + " steps");
+		assertTrue(BrokerInfo.get(intBroker) == info && info.index() >= 0, "The BrokerInfo of the IntegerBroker changed while it remained registered");
+		assertTrue(api.indexBound() <= 2, "Indices leaked, " + api.indexBound() + " were assigned for 2 Brokers");
+		assertTrue(api.forPurchase(null, null, "1").get().getBrokerInfo().id().equals(expected(completed.get())), "The final registry does not reflect the last mutation");
+	}
+
+	private static final class StressBroker extends IntegerBroker {
+
+		static final String ID = "StressBroker";
+
+		@Override
+		public String getId() {
+			return ID;
+		}
+
+		@Override
+		public byte getPriority() {
+			return 20;
+		}
+
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ *
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * This program is distributed under the terms of the GNU Lesser General Public License
+ *
+ */
+package com.gmail.justisroot.broker.codec;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.gmail.justisroot.broker.BigDecimalBroker;
+import com.gmail.justisroot.broker.BrokerInfo;
+import com.gmail.justisroot.broker.IntegerBroker;
+import com.gmail.justisroot.broker.record.PurchaseRecord;
+import com.gmail.justisroot.broker.record.SaleRecord;
+
+class TransactionCodecTest {
+
+	private final IntegerBroker intBroker = new IntegerBroker();
+	private final BigDecimalBroker bigDBroker = new BigDecimalBroker();
+	private final TransactionCodec codec = new TransactionCodec().register(String.class, new ObjectCodec<String>() {
+
+		@Override
+		public void write(ByteBuffer buffer, String object) {
+			buffer.put(object.getBytes(StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public String read(ByteBuffer buffer) {
+			return StandardCharsets.UTF_8.decode(buffer).toString();
+		}
+	});
+
+	@Test
+	@DisplayName("Verify a sale survives a round trip through the codec")
+	void saleRoundTripTest() {
+		UUID player = UUID.randomUUID(), world = UUID.randomUUID();
+		SaleRecord<String> record = SaleRecord.start(intBroker, "12", Optional.of(player), Optional.of(world)).setVolume(300).setValue(new BigDecimal("12.75")).buildFailure("Test");
+		ByteBuffer buffer = ByteBuffer.allocate(256);
+		codec.write(buffer, new CodecDictionary(), BrokerInfo.get(intBroker), record, 42);
+		TransactionEntry entry = codec.read(buffer.flip(), new CodecDictionary());
+		assertTrue(!buffer.hasRemaining(), "The decoded sale did not consume the entire encoding");
+		assertTrue(entry.isSale() && !entry.isListing(), "The decoded transaction was not a non-listing sale");
+		assertTrue(entry.brokerID().equals(IntegerBroker.ID) && entry.typeName().equals(String.class.getName()), "The decoded Broker did not match the encoded Broker");
+		assertTrue(entry.playerID().equals(Optional.of(player)) && entry.worldID().equals(Optional.of(world)), "The decoded IDs did not match the encoded IDs");
+		assertTrue(entry.volume() == 300 && entry.value().equals(new BigDecimal("12.75")) && entry.timestamp() == 42, "The decoded volume, value or timestamp did not match");
+		assertTrue("12".equals(entry.object()), "The transacted object was not decoded by the registered ObjectCodec");
+		assertTrue(entry.transactionID().equals(Optional.of(record.id())), "The decoded transaction ID did not match the record's ID");
+	}
+
+	@Test
+	@DisplayName("Verify large values, absent IDs and types without an ObjectCodec")
+	void purchaseRoundTripTest() {
+		BigDecimal value = new BigDecimal("123456789012345678901234567890.0001");
+		PurchaseRecord<BigDecimal> record = PurchaseRecord.start(bigDBroker, BigDecimal.ONE, Optional.empty(), Optional.empty()).setValue(value).buildFailure("Test");
+		ByteBuffer buffer = ByteBuffer.allocate(256);
+		codec.write(buffer, new CodecDictionary(), BrokerInfo.get(bigDBroker), record, System.currentTimeMillis());
+		TransactionEntry entry = codec.read(buffer.flip(), new CodecDictionary());
+		assertTrue(entry.isPurchase(), "The decoded transaction was not a purchase");
+		assertTrue(entry.playerID().isEmpty() && entry.worldID().isEmpty(), "Absent IDs were decoded as present");
+		assertTrue(entry.value().equals(value), entry.value() + " was decoded when " + value + " was expected");
+		assertTrue(entry.object() == null, "An object was decoded for a type without an ObjectCodec");
+	}
+
+	@Test
+	@DisplayName("Verify that dictionary references shrink repeated entries of a stream")
+	void dictionaryTest() {
+		SaleRecord<String> record = SaleRecord.start(intBroker, "1", Optional.empty(), Optional.empty()).buildFailure("Test");
+		CodecDictionary writing = new CodecDictionary(), reading = new CodecDictionary();
+		ByteBuffer buffer = ByteBuffer.allocate(256);
+		codec.write(buffer, writing, BrokerInfo.get(intBroker), record, 0);
+		int first = buffer.position();
+		codec.write(buffer, writing, BrokerInfo.get(intBroker), record, 0);
+		assertTrue(buffer.position() - first < first, "The second entry was not smaller than the first");
+		buffer.flip();
+		codec.read(buffer, reading);
+		assertTrue(codec.read(buffer, reading).brokerID().equals(IntegerBroker.ID), "The Broker ID was not resolved from the dictionary");
+		assertThrows(IllegalArgumentException.class, () -> codec.read(buffer.position(first), new CodecDictionary()));
+	}
+
+}
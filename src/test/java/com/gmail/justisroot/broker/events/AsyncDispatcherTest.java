@@ -0,0 +1,177 @@
+/*
+ *
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * This program is distributed under the terms of the GNU Lesser General Public License
+ *
+ */
+package com.gmail.justisroot.broker.events;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.gmail.justisroot.broker.BrokerInfo;
+import com.gmail.justisroot.broker.IntegerBroker;
+import com.gmail.justisroot.broker.record.SaleRecord;
+
+class AsyncDispatcherTest {
+
+	private final BrokerEventService service = BrokerEventService.current();
+	private final IntegerBroker intBroker = new IntegerBroker();
+	private final BrokerInfo info = BrokerInfo.get(intBroker);
+	private final AtomicInteger delivered = new AtomicInteger();
+	private final CountDownLatch entered = new CountDownLatch(1), release = new CountDownLatch(1);
+
+	private final SaleEventHandler counter = (info, record) -> delivered.incrementAndGet();
+	private final SaleEventHandler blocker = (info, record) -> {
+		entered.countDown();
+		try {
+			release.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	};
+
+	@AfterEach
+	void removeListeners() {
+		release.countDown();
+		service.removeSaleListener(counter);
+		service.removeSaleListener(blocker);
+		service.setAsyncDispatch(null);
+	}
+
+	private SaleRecord<String> sale() {
+		return SaleRecord.start(intBroker, "1", Optional.empty(), Optional.empty()).setValue(BigDecimal.ONE).buildSuccess();
+	}
+
+	private AsyncDispatcher fill(DispatchSettings settings) throws InterruptedException {
+		service.addSaleListener(EventPriority.NORMAL, counter);
+		service.addSaleListener(EventPriority.MONITOR, blocker);
+		service.setAsyncDispatch(settings.setCapacity(4).setConsumers(1));
+		service.createSaleEvent(info, sale());
+		assertTrue(entered.await(1, TimeUnit.SECONDS), "The consumer did not take the first event");
+		for (int i = 0; i < 4; i++) service.createSaleEvent(info, sale());
+		return service.asyncDispatcher();
+	}
+
+	private Thread publisher() throws InterruptedException {
+		Thread publisher = new Thread(() -> service.createSaleEvent(info, sale()));
+		publisher.start();
+		publisher.join(100);
+		return publisher;
+	}
+
+	@Test
+	@DisplayName("Verify every published event is delivered by the consumer threads")
+	void deliveryTest() {
+		AtomicLong consumerThreads = new AtomicLong();
+		Thread caller = Thread.currentThread();
+		SaleEventHandler handler = (info, record) -> {
+			if (Thread.currentThread() != caller) consumerThreads.incrementAndGet();
+		};
+		service.addSaleListener(EventPriority.NORMAL, counter);
+		service.addSaleListener(EventPriority.NORMAL, handler);
+		try {
+			service.setAsyncDispatch(new DispatchSettings().setConsumers(2).setWaitStrategy(WaitStrategy.SLEEPING));
+			AsyncDispatcher dispatcher = service.asyncDispatcher();
+			for (int i = 0; i < 1000; i++) service.createSaleEvent(info, sale());
+			service.setAsyncDispatch(null);
+			assertTrue(delivered.get() == 1000 && dispatcher.dispatched() == 1000, delivered.get() + " of 1000 events were delivered");
+			assertTrue(consumerThreads.get() == 1000, "Only " + consumerThreads.get() + " events were delivered by a consumer thread");
+		} finally {
+			service.removeSaleListener(handler);
+		}
+	}
+
+	@Test
+	@DisplayName("Verify the BLOCK policy makes publishers wait for room in a full buffer")
+	void blockTest() throws InterruptedException {
+		AsyncDispatcher dispatcher = fill(new DispatchSettings().setOverflowPolicy(OverflowPolicy.BLOCK));
+		Thread publisher = publisher();
+		assertTrue(publisher.isAlive(), "A publisher did not wait for room in a full buffer");
+		release.countDown();
+		publisher.join(1000);
+		service.setAsyncDispatch(null);
+		assertTrue(delivered.get() == 6 && dispatcher.dropped() == 0, delivered.get() + " of 6 events were delivered, " + dispatcher.dropped() + " dropped");
+	}
+
+	@Test
+	@DisplayName("Verify the DROP policy drops and counts events published to a full buffer")
+	void dropTest() throws InterruptedException {
+		AsyncDispatcher dispatcher = fill(new DispatchSettings().setOverflowPolicy(OverflowPolicy.DROP));
+		for (int i = 0; i < 10; i++) service.createSaleEvent(info, sale());
+		assertTrue(dispatcher.dropped() == 10, dispatcher.dropped() + " events were dropped when 10 were expected");
+		release.countDown();
+		service.setAsyncDispatch(null);
+		assertTrue(delivered.get() == 5, delivered.get() + " of the 5 events that fit were delivered");
+	}
+
+	@Test
+	@DisplayName("Verify the SAMPLE policy only keeps every n-th event published to a full buffer")
+	void sampleTest() throws InterruptedException {
+		AsyncDispatcher dispatcher = fill(new DispatchSettings().setOverflowPolicy(OverflowPolicy.SAMPLE).setSampleRate(4));
+		for (int i = 0; i < 3; i++) service.createSaleEvent(info, sale());
+		assertTrue(dispatcher.dropped() == 3, dispatcher.dropped() + " events were dropped when 3 were expected");
+		Thread publisher = publisher();
+		assertTrue(publisher.isAlive(), "The sampled event did not wait for room in a full buffer");
+		release.countDown();
+		publisher.join(1000);
+		service.setAsyncDispatch(null);
+		assertTrue(delivered.get() == 6 && dispatcher.dropped() == 3, delivered.get() + " of 6 events were delivered, " + dispatcher.dropped() + " dropped");
+	}
+
+	@Test
+	@DisplayName("Verify a listener throwing an Error does not stop the consumer")
+	void errorTest() {
+		AtomicBoolean thrown = new AtomicBoolean();
+		SaleEventHandler thrower = (info, record) -> {
+			if (thrown.compareAndSet(false, true)) throw new AssertionError("Expected by errorTest");
+		};
+		service.addSaleListener(EventPriority.LOWEST, thrower);
+		service.addSaleListener(EventPriority.MONITOR, counter);
+		try {
+			service.setAsyncDispatch(new DispatchSettings());
+			AsyncDispatcher dispatcher = service.asyncDispatcher();
+			service.createSaleEvent(info, sale());
+			service.createSaleEvent(info, sale());
+			service.setAsyncDispatch(null);
+			assertTrue(thrown.get() && delivered.get() == 1 && dispatcher.dispatched() == 2, "The consumer stopped after a listener threw an Error");
+		} finally {
+			service.removeSaleListener(thrower);
+		}
+	}
+
+	@Test
+	@DisplayName("Verify no event is lost while dispatchers are swapped and closed")
+	void closeTest() throws InterruptedException {
+		service.addSaleListener(EventPriority.NORMAL, counter);
+		AtomicInteger published = new AtomicInteger();
+		long end = System.currentTimeMillis() + 500;
+		Thread[] publishers = new Thread[4];
+		for (int i = 0; i < publishers.length; i++) {
+			publishers[i] = new Thread(() -> {
+				while (System.currentTimeMillis() < end) {
+					service.createSaleEvent(info, sale());
+					published.incrementAndGet();
+				}
+			});
+			publishers[i].start();
+		}
+		for (int i = 0; System.currentTimeMillis() < end; i++) service.setAsyncDispatch(new DispatchSettings().setCapacity(64).setWaitStrategy(WaitStrategy.values()[i % WaitStrategy.values().length]));
+		for (Thread publisher : publishers) publisher.join();
+		service.setAsyncDispatch(null);
+		assertTrue(delivered.get() == published.get(), delivered.get() + " of " + published.get() + " events were delivered across closes");
+	}
+
+}
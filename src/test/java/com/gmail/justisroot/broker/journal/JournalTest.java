@@ -0,0 +1,147 @@
+/*
+ *
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * This program is distributed under the terms of the GNU Lesser General Public License
+ *
+ */
+package com.gmail.justisroot.broker.journal;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import com.gmail.justisroot.broker.BrokerInfo;
+import com.gmail.justisroot.broker.IntegerBroker;
+import com.gmail.justisroot.broker.NaNBroker;
+import com.gmail.justisroot.broker.codec.TransactionCodec;
+import com.gmail.justisroot.broker.record.PurchaseRecord;
+import com.gmail.justisroot.broker.record.SaleRecord;
+
+@TestInstance(Lifecycle.PER_CLASS)
+@TestMethodOrder(OrderAnnotation.class)
+class JournalTest {
+
+	private final IntegerBroker intBroker = new IntegerBroker();
+	private final UUID player = UUID.randomUUID();
+	private final File folder;
+	private final File checkpoint;
+
+	JournalTest() throws IOException {
+		folder = Files.createTempDirectory("journal").toFile();
+		checkpoint = new File(folder, "replay.checkpoint");
+	}
+
+	@AfterAll
+	@DisplayName("Clean up")
+	void removeJournal() {
+		for (File file : folder.listFiles()) file.delete();
+		folder.delete();
+	}
+
+	private void append(Durability durability, int count) throws IOException {
+		try (TransactionJournal journal = TransactionJournal.open(folder, new JournalSettings().setSegmentSize(4096).setDurability(durability))) {
+			for (int i = 0; i < count; i++) {
+				SaleRecord<String> sale = SaleRecord.start(intBroker, "1", Optional.of(player), Optional.empty()).setVolume(2).setValue(BigDecimal.ONE).buildFailure("Test");
+				PurchaseRecord<String> purchase = PurchaseRecord.start(intBroker, "1", Optional.of(player), Optional.empty()).setValue(BigDecimal.TEN).buildFailure("Test");
+				journal.append(BrokerInfo.get(intBroker), sale);
+				journal.append(BrokerInfo.get(intBroker), purchase);
+			}
+		}
+	}
+
+	@Test
+	@Order(0)
+	@DisplayName("Verify that a replay sees every journaled entry across rolled segments")
+	void replayTest() throws IOException {
+		append(Durability.SYNC, 100);
+		assertTrue(TransactionJournal.segments(folder).length > 1, "The journal did not roll to a new segment");
+		TransactionTotals byBroker = TransactionTotals.byBroker(), byWorld = TransactionTotals.byWorld();
+		long replayed = new JournalReplay(new TransactionCodec()).register(byBroker).register(byWorld).replay(folder, checkpoint);
+		assertTrue(replayed == 200, replayed + " entries were replayed when 200 were expected");
+		TransactionTotals.Totals totals = byBroker.get(IntegerBroker.ID).get();
+		assertTrue(totals.sales() == 100 && totals.soldVolume() == 200 && totals.saleValue().compareTo(BigDecimal.valueOf(100)) == 0, "The sale totals did not match the journaled sales");
+		assertTrue(totals.purchases() == 100 && totals.purchaseValue().compareTo(BigDecimal.valueOf(1000)) == 0, "The purchase totals did not match the journaled purchases");
+		assertTrue(byWorld.all().isEmpty(), "Entries without a world ID were grouped by world");
+	}
+
+	@Test
+	@Order(1)
+	@DisplayName("Verify that reopening the journal resumes it and the checkpoint limits replay to the tail")
+	void checkpointTest() throws IOException {
+		append(Durability.NONE, 10);
+		TransactionTotals byBroker = TransactionTotals.byBroker(), byWorld = TransactionTotals.byWorld();
+		long replayed = new JournalReplay(new TransactionCodec()).register(byBroker).register(byWorld).replay(folder, checkpoint);
+		assertTrue(replayed == 20, replayed + " entries were replayed when only the 20 past the checkpoint were expected");
+		assertTrue(byBroker.get(IntegerBroker.ID).get().sales() == 110, "The checkpointed totals were not restored prior to replaying the tail");
+		TransactionTotals byPlayer = TransactionTotals.byPlayer();
+		replayed = new JournalReplay(new TransactionCodec()).register(TransactionTotals.byBroker()).register(byPlayer).replay(folder, checkpoint);
+		assertTrue(replayed == 220 && byPlayer.get(player.toString()).get().purchases() == 110, "An aggregator missing from the checkpoint did not trigger a full replay");
+	}
+
+	@Test
+	@Order(2)
+	@DisplayName("Verify that an entry too large for a segment leaves the segment's dictionary intact")
+	void oversizedTest() throws IOException {
+		File folder = Files.createTempDirectory("journal").toFile();
+		NaNBroker nanBroker = new NaNBroker();
+		try (TransactionJournal journal = TransactionJournal.open(folder, new JournalSettings().setSegmentSize(4096).setDurability(Durability.NONE))) {
+			journal.append(BrokerInfo.get(intBroker), SaleRecord.start(intBroker, "1", Optional.of(player), Optional.empty()).setValue(BigDecimal.ONE).buildFailure("Test"));
+			SaleRecord<String> oversized = SaleRecord.start(nanBroker, "NaN", Optional.of(player), Optional.empty()).setValue(new BigDecimal(BigInteger.TEN.pow(20000))).buildFailure("Test");
+			try {
+				journal.append(BrokerInfo.get(nanBroker), oversized);
+				assertTrue(false, "An entry larger than a segment was appended");
+			} catch (IllegalArgumentException e) { }
+			journal.append(BrokerInfo.get(nanBroker), SaleRecord.start(nanBroker, "NaN", Optional.of(player), Optional.empty()).setValue(BigDecimal.ONE).buildFailure("Test"));
+		}
+		TransactionTotals byBroker = TransactionTotals.byBroker();
+		try {
+			long replayed = new JournalReplay(new TransactionCodec()).register(byBroker).replay(folder, new File(folder, "replay.checkpoint"));
+			assertTrue(replayed == 2, replayed + " entries were replayed when 2 were expected");
+			assertTrue(byBroker.get(NaNBroker.ID).get().sales() == 1, "The entry appended after the oversized entry was not replayed");
+		} finally {
+			for (File file : folder.listFiles()) file.delete();
+			folder.delete();
+		}
+	}
+
+	@Test
+	@Order(3)
+	@DisplayName("Verify that a newest segment left with a blank header by a crash is treated as empty")
+	void blankHeaderTest() throws IOException {
+		File folder = Files.createTempDirectory("journal").toFile();
+		JournalSettings settings = new JournalSettings().setSegmentSize(4096).setDurability(Durability.NONE);
+		try {
+			try (TransactionJournal journal = TransactionJournal.open(folder, settings)) {
+				journal.append(BrokerInfo.get(intBroker), SaleRecord.start(intBroker, "1", Optional.of(player), Optional.empty()).setValue(BigDecimal.ONE).buildFailure("Test"));
+			}
+			Files.write(new File(folder, JournalSegment.name(1)).toPath(), new byte[4096]);
+			long replayed = new JournalReplay(new TransactionCodec()).register(TransactionTotals.byBroker()).replay(folder, null);
+			assertTrue(replayed == 1, replayed + " entries were replayed past a blank segment when 1 was expected");
+			try (TransactionJournal journal = TransactionJournal.open(folder, settings)) {
+				journal.append(BrokerInfo.get(intBroker), SaleRecord.start(intBroker, "1", Optional.of(player), Optional.empty()).setValue(BigDecimal.ONE).buildFailure("Test"));
+			}
+			replayed = new JournalReplay(new TransactionCodec()).register(TransactionTotals.byBroker()).replay(folder, null);
+			assertTrue(replayed == 2, replayed + " entries were replayed after resuming a blank segment when 2 were expected");
+		} finally {
+			for (File file : folder.listFiles()) file.delete();
+			folder.delete();
+		}
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ *
+ * BrokerAPI Copyright 2020 Justis Root
+ *
+ * This program is distributed under the terms of the GNU Lesser General Public License
+ *
+ */
+package com.gmail.justisroot.broker.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BrokerMetricsTest {
+
+	@Test
+	@DisplayName("Verify every latency falls within the bounds of its bucket")
+	void bucketTest() {
+		for (long nanos : new long[] { 0, 1, 3, 4, 7, 8, 9, 1000, 123456789, Long.MAX_VALUE / 3, Long.MAX_VALUE }) {
+			int bucket = LatencyHistogram.bucket(nanos);
+			assertTrue(nanos <= LatencyHistogram.highest(bucket), nanos + " exceeds the highest latency of its bucket");
+			assertTrue(bucket == 0 || nanos > LatencyHistogram.highest(bucket - 1), nanos + " falls within the previous bucket");
+			assertTrue(nanos < 4 || LatencyHistogram.highest(bucket) - nanos <= nanos / 4, "The bucket of " + nanos + " is wider than 25%");
+		}
+	}
+
+	@Test
+	@DisplayName("Verify snapshots report counts and percentiles, and reset")
+	void snapshotTest() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++) histogram.record(i * 1000L);
+		LatencySnapshot snapshot = histogram.snapshot(true);
+		assertTrue(snapshot.count() == 1000 && snapshot.max() == 1000000, "The snapshot " + snapshot + " did not count every latency");
+		assertTrue(snapshot.p50() >= 500000 && snapshot.p50() <= 625000, "The median " + snapshot.p50() + " is not within 25% of 500000");
+		assertTrue(snapshot.p99() >= 990000 && snapshot.p99() <= 1000000, "The 99th percentile " + snapshot.p99() + " is not within bounds");
+		assertTrue(histogram.snapshot(false).count() == 0, "The histogram was not reset by its snapshot");
+		histogram.record(2000);
+		assertTrue(histogram.snapshot(true).mean() == 2000 && histogram.snapshot(false).mean() == 0, "The total of the histogram was not reset by its snapshot");
+	}
+
+	@Test
+	@DisplayName("Verify transactions are aggregated over rolling windows and expire")
+	void aggregateTest() {
+		AtomicLong clock = new AtomicLong(1_000_000);
+		TransactionAggregates aggregates = new TransactionAggregates(clock::get);
+		UUID world = UUID.randomUUID(), player = UUID.randomUUID();
+		aggregates.record("broker", world, player, true, 2, new BigDecimal("1.25"));
+		clock.addAndGet(30_000);
+		aggregates.record("broker", world, null, true, 3, new BigDecimal("0.00006"));
+		aggregates.record("broker", world, player, false, 1, BigDecimal.TEN);
+		AggregateSnapshot minute = aggregates.broker("broker", Duration.ofMinutes(1), true);
+		assertTrue(minute.count() == 2 && minute.volume() == 5, "The sales of the last minute " + minute + " were not all counted");
+		assertTrue(minute.value().compareTo(new BigDecimal("1.2501")) == 0, "The value " + minute.value() + " was not summed in fixed-point");
+		assertTrue(aggregates.broker("broker", Duration.ofSeconds(10), true).count() == 1, "A sale outside of the window was counted");
+		assertTrue(aggregates.player(player, Duration.ofMinutes(1), true).count() == 1, "A sale without a player was counted for the player");
+		assertTrue(aggregates.world(world, Duration.ofMinutes(1), false).value().compareTo(BigDecimal.TEN) == 0, "The purchase was not aggregated for its world");
+		clock.addAndGet(120_000);
+		assertTrue(aggregates.broker("broker", Duration.ofMinutes(1), true).count() == 0, "Sales older than the window were counted");
+		assertTrue(aggregates.broker("broker", Duration.ofHours(1), true).count() == 2, "Sales within the hour were not counted");
+		clock.addAndGet(TransactionAggregates.MAX_WINDOW.toMillis());
+		aggregates.record("other", null, null, true, 1, BigDecimal.ONE);
+		assertTrue(aggregates.brokers(Duration.ofHours(1), true).keySet().equals(Set.of("other")), "An idle Broker was not discarded");
+		assertTrue(TransactionAggregates.fixed(new BigDecimal("1e30")) == Long.MAX_VALUE, "An overflowing value did not saturate");
+		aggregates.record("large", null, null, true, 1, new BigDecimal("1e30"));
+		clock.addAndGet(1_000);
+		aggregates.record("large", null, null, true, 1, new BigDecimal("1e30"));
+		BigDecimal large = aggregates.broker("large", Duration.ofMinutes(1), true).value();
+		assertTrue(large.compareTo(BigDecimal.valueOf(Long.MAX_VALUE, TransactionAggregates.SCALE)) == 0, "The overflowing sum " + large + " did not saturate");
+	}
+
+}